@@ -14,13 +14,18 @@ public class MigrationConfig {
     // Queue configuration
     private int queueCapacity = 10000; // Max batches in queue
     private int batchSize = 1000; // Documents per batch
+    private long batchTargetBytes = 0; // Size batches from avgObjSize when > 0 (batchSize becomes the cap)
 
     // Retry configuration
     private int maxRetries = 3; // Retry attempts for failed batches
     private long retryDelayMs = 1000; // Delay between retries (ms)
+    private boolean useBatchLedger = false; // Record committed batches in the target for exactly-once retries
 
     // MongoDB configuration
     private int mongoFetchSize = 5000; // MongoDB cursor batch size
+    private int mongoPoolSize = 100; // Source connections (driver default); caps concurrent cursor reads on virtual threads
+    private boolean exactCounts = false; // countDocuments per table instead of $collStats metadata
+    private boolean createWatermarkIndex = false; // Build a missing watermark index on the source instead of refusing to sync
 
     // PostgreSQL configuration
     private int postgresPoolSize = 10; // Connection pool size
@@ -28,6 +33,24 @@ public class MigrationConfig {
     // Enable/disable producer-consumer mode
     private boolean useProducerConsumer = true;
 
+    // Run producers and consumers on virtual threads instead of a cached platform pool
+    private boolean useVirtualThreads = false;
+
+    // Read collections with the reactive-streams driver (demand-driven cursors)
+    private boolean useReactiveProducer = false;
+
+    // Source read throttling (shared per source cluster, 0 = unlimited)
+    private double sourceMaxDocsPerSecond = 0; // Documents read per second
+    private double sourceMaxBytesPerSecond = 0; // BSON bytes read per second
+    private boolean sourceAutoThrottle = false; // Back off when source read latency is high
+    private double sourceLatencyThresholdMs = 20; // Average read latency that triggers back-off
+    private long sourceLatencyPollIntervalMs = 5000; // serverStatus polling interval
+
+    // Target write throttling on replication lag
+    private boolean targetLagThrottle = false; // Poll pg_stat_replication and slow writers
+    private long targetMaxReplicationLagMs = 10000; // Replay lag that halves writers (2x pauses them)
+    private long targetLagPollIntervalMs = 5000; // pg_stat_replication polling interval
+
     // Getters and Setters
 
     public int getProducerThreads() {
@@ -82,6 +105,14 @@ public class MigrationConfig {
         return mongoFetchSize;
     }
 
+    public int getMongoPoolSize() {
+        return mongoPoolSize;
+    }
+
+    public void setMongoPoolSize(int mongoPoolSize) {
+        this.mongoPoolSize = mongoPoolSize;
+    }
+
     public void setMongoFetchSize(int mongoFetchSize) {
         this.mongoFetchSize = mongoFetchSize;
     }
@@ -101,4 +132,116 @@ public class MigrationConfig {
     public void setUseProducerConsumer(boolean useProducerConsumer) {
         this.useProducerConsumer = useProducerConsumer;
     }
+
+    public boolean isUseVirtualThreads() {
+        return useVirtualThreads;
+    }
+
+    public void setUseVirtualThreads(boolean useVirtualThreads) {
+        this.useVirtualThreads = useVirtualThreads;
+    }
+
+    public boolean isUseReactiveProducer() {
+        return useReactiveProducer;
+    }
+
+    public void setUseReactiveProducer(boolean useReactiveProducer) {
+        this.useReactiveProducer = useReactiveProducer;
+    }
+
+    public double getSourceMaxDocsPerSecond() {
+        return sourceMaxDocsPerSecond;
+    }
+
+    public void setSourceMaxDocsPerSecond(double sourceMaxDocsPerSecond) {
+        this.sourceMaxDocsPerSecond = sourceMaxDocsPerSecond;
+    }
+
+    public double getSourceMaxBytesPerSecond() {
+        return sourceMaxBytesPerSecond;
+    }
+
+    public void setSourceMaxBytesPerSecond(double sourceMaxBytesPerSecond) {
+        this.sourceMaxBytesPerSecond = sourceMaxBytesPerSecond;
+    }
+
+    public boolean isSourceAutoThrottle() {
+        return sourceAutoThrottle;
+    }
+
+    public void setSourceAutoThrottle(boolean sourceAutoThrottle) {
+        this.sourceAutoThrottle = sourceAutoThrottle;
+    }
+
+    public double getSourceLatencyThresholdMs() {
+        return sourceLatencyThresholdMs;
+    }
+
+    public void setSourceLatencyThresholdMs(double sourceLatencyThresholdMs) {
+        this.sourceLatencyThresholdMs = sourceLatencyThresholdMs;
+    }
+
+    public long getSourceLatencyPollIntervalMs() {
+        return sourceLatencyPollIntervalMs;
+    }
+
+    public void setSourceLatencyPollIntervalMs(long sourceLatencyPollIntervalMs) {
+        this.sourceLatencyPollIntervalMs = sourceLatencyPollIntervalMs;
+    }
+
+    public boolean isTargetLagThrottle() {
+        return targetLagThrottle;
+    }
+
+    public void setTargetLagThrottle(boolean targetLagThrottle) {
+        this.targetLagThrottle = targetLagThrottle;
+    }
+
+    public long getTargetMaxReplicationLagMs() {
+        return targetMaxReplicationLagMs;
+    }
+
+    public void setTargetMaxReplicationLagMs(long targetMaxReplicationLagMs) {
+        this.targetMaxReplicationLagMs = targetMaxReplicationLagMs;
+    }
+
+    public long getTargetLagPollIntervalMs() {
+        return targetLagPollIntervalMs;
+    }
+
+    public void setTargetLagPollIntervalMs(long targetLagPollIntervalMs) {
+        this.targetLagPollIntervalMs = targetLagPollIntervalMs;
+    }
+
+    public boolean isUseBatchLedger() {
+        return useBatchLedger;
+    }
+
+    public void setUseBatchLedger(boolean useBatchLedger) {
+        this.useBatchLedger = useBatchLedger;
+    }
+
+    public long getBatchTargetBytes() {
+        return batchTargetBytes;
+    }
+
+    public void setBatchTargetBytes(long batchTargetBytes) {
+        this.batchTargetBytes = batchTargetBytes;
+    }
+
+    public boolean isExactCounts() {
+        return exactCounts;
+    }
+
+    public void setExactCounts(boolean exactCounts) {
+        this.exactCounts = exactCounts;
+    }
+
+    public boolean isCreateWatermarkIndex() {
+        return createWatermarkIndex;
+    }
+
+    public void setCreateWatermarkIndex(boolean createWatermarkIndex) {
+        this.createWatermarkIndex = createWatermarkIndex;
+    }
 }
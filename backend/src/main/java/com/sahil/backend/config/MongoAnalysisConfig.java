@@ -0,0 +1,270 @@
+package com.sahil.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "mongo.analysis")
+public class MongoAnalysisConfig {
+
+    // Sampling configuration
+    private int defaultSampleSize = 1000; // Documents sampled per collection
+    private int maxNestingDepth = 10; // Deepest embedded document level analyzed
+    private boolean streamingSampler = true; // Analyze documents as the cursor yields them
+    private String inferenceMode = "CLIENT"; // CLIENT (documents analyzed in the JVM) or SERVER (aggregation pipeline)
+    private boolean adaptiveSampling = false; // Sample in chunks until the schema converges
+    private double convergenceThreshold = 0.99; // 1 - largest frequency or type share shift between chunks
+    private int adaptiveChunkSize = 200; // Documents per adaptive sample chunk
+    private int adaptiveMaxSampleSize = 20000; // Document budget per collection
+    private long adaptiveMaxMillis = 10000; // Time budget per collection
+    private String samplingStrategy = "AUTO"; // RANDOM ($sample), STRATIFIED (_id ranges) or AUTO
+    private long stratifiedMinDocuments = 1_000_000; // AUTO stratifies collections at least this large
+    private int sampleStrata = 16; // _id ranges a stratified sample is spread over
+    private int sampleSliceSize = 20; // Documents read per random seek into a stratum
+    private double dominantTypeShare = 0.99; // Share of non-null values a column type must cover
+    private boolean reuseUnchangedCollections = true; // Skip collections whose change fingerprint is unchanged
+
+    // Relationship verification
+    private boolean verifyRelationships = true; // Score candidate references by sampled value match rate
+    private int relationshipSampleSize = 500; // Source documents sampled per candidate
+    private long bloomMaxIds = 1_000_000; // Larger targets are probed with indexed $in lookups instead
+    private double bloomFalsePositiveRate = 0.01;
+    private int relationshipVerifyThreads = 4; // Target collections verified at once
+
+    // Concurrency configuration
+    private int analysisThreads = 16; // Shared pool size for collection analysis
+    private int maxConcurrentCollectionsPerSource = 4; // Collections sampled at once against one source
+    private int jobThreads = 2; // Analysis jobs run at once; the rest wait in a priority queue
+    private int jobQueueCapacity = 100; // Queued jobs beyond this are rejected
+    private long jobRetentionMinutes = 60; // Finished jobs stay queryable this long
+
+    // Persistence of analysis results
+    private int persistBatchSize = 500; // Entities flushed per JDBC batch (keep equal to hibernate.jdbc.batch_size)
+    private boolean writeFieldRows = true; // Also write one mongo_schema_fields row per field (for SQL queries)
+    private int schemaViewCacheSize = 32; // Schemas kept decoded in memory
+
+    // Getters and Setters
+    public int getDefaultSampleSize() {
+        return defaultSampleSize;
+    }
+
+    public void setDefaultSampleSize(int defaultSampleSize) {
+        this.defaultSampleSize = defaultSampleSize;
+    }
+
+    public int getMaxNestingDepth() {
+        return maxNestingDepth;
+    }
+
+    public void setMaxNestingDepth(int maxNestingDepth) {
+        this.maxNestingDepth = maxNestingDepth;
+    }
+
+    public boolean isStreamingSampler() {
+        return streamingSampler;
+    }
+
+    public void setStreamingSampler(boolean streamingSampler) {
+        this.streamingSampler = streamingSampler;
+    }
+
+    public String getInferenceMode() {
+        return inferenceMode;
+    }
+
+    public void setInferenceMode(String inferenceMode) {
+        this.inferenceMode = inferenceMode;
+    }
+
+    public boolean isAdaptiveSampling() {
+        return adaptiveSampling;
+    }
+
+    public void setAdaptiveSampling(boolean adaptiveSampling) {
+        this.adaptiveSampling = adaptiveSampling;
+    }
+
+    public double getConvergenceThreshold() {
+        return convergenceThreshold;
+    }
+
+    public void setConvergenceThreshold(double convergenceThreshold) {
+        this.convergenceThreshold = convergenceThreshold;
+    }
+
+    public int getAdaptiveChunkSize() {
+        return adaptiveChunkSize;
+    }
+
+    public void setAdaptiveChunkSize(int adaptiveChunkSize) {
+        this.adaptiveChunkSize = adaptiveChunkSize;
+    }
+
+    public int getAdaptiveMaxSampleSize() {
+        return adaptiveMaxSampleSize;
+    }
+
+    public void setAdaptiveMaxSampleSize(int adaptiveMaxSampleSize) {
+        this.adaptiveMaxSampleSize = adaptiveMaxSampleSize;
+    }
+
+    public long getAdaptiveMaxMillis() {
+        return adaptiveMaxMillis;
+    }
+
+    public void setAdaptiveMaxMillis(long adaptiveMaxMillis) {
+        this.adaptiveMaxMillis = adaptiveMaxMillis;
+    }
+
+    public String getSamplingStrategy() {
+        return samplingStrategy;
+    }
+
+    public void setSamplingStrategy(String samplingStrategy) {
+        this.samplingStrategy = samplingStrategy;
+    }
+
+    public long getStratifiedMinDocuments() {
+        return stratifiedMinDocuments;
+    }
+
+    public void setStratifiedMinDocuments(long stratifiedMinDocuments) {
+        this.stratifiedMinDocuments = stratifiedMinDocuments;
+    }
+
+    public int getSampleStrata() {
+        return sampleStrata;
+    }
+
+    public void setSampleStrata(int sampleStrata) {
+        this.sampleStrata = sampleStrata;
+    }
+
+    public int getSampleSliceSize() {
+        return sampleSliceSize;
+    }
+
+    public void setSampleSliceSize(int sampleSliceSize) {
+        this.sampleSliceSize = sampleSliceSize;
+    }
+
+    public double getDominantTypeShare() {
+        return dominantTypeShare;
+    }
+
+    public void setDominantTypeShare(double dominantTypeShare) {
+        this.dominantTypeShare = dominantTypeShare;
+    }
+
+    public boolean isReuseUnchangedCollections() {
+        return reuseUnchangedCollections;
+    }
+
+    public void setReuseUnchangedCollections(boolean reuseUnchangedCollections) {
+        this.reuseUnchangedCollections = reuseUnchangedCollections;
+    }
+
+    public boolean isVerifyRelationships() {
+        return verifyRelationships;
+    }
+
+    public void setVerifyRelationships(boolean verifyRelationships) {
+        this.verifyRelationships = verifyRelationships;
+    }
+
+    public int getRelationshipSampleSize() {
+        return relationshipSampleSize;
+    }
+
+    public void setRelationshipSampleSize(int relationshipSampleSize) {
+        this.relationshipSampleSize = relationshipSampleSize;
+    }
+
+    public long getBloomMaxIds() {
+        return bloomMaxIds;
+    }
+
+    public void setBloomMaxIds(long bloomMaxIds) {
+        this.bloomMaxIds = bloomMaxIds;
+    }
+
+    public double getBloomFalsePositiveRate() {
+        return bloomFalsePositiveRate;
+    }
+
+    public void setBloomFalsePositiveRate(double bloomFalsePositiveRate) {
+        this.bloomFalsePositiveRate = bloomFalsePositiveRate;
+    }
+
+    public int getRelationshipVerifyThreads() {
+        return relationshipVerifyThreads;
+    }
+
+    public void setRelationshipVerifyThreads(int relationshipVerifyThreads) {
+        this.relationshipVerifyThreads = relationshipVerifyThreads;
+    }
+
+    public int getAnalysisThreads() {
+        return analysisThreads;
+    }
+
+    public void setAnalysisThreads(int analysisThreads) {
+        this.analysisThreads = analysisThreads;
+    }
+
+    public int getMaxConcurrentCollectionsPerSource() {
+        return maxConcurrentCollectionsPerSource;
+    }
+
+    public void setMaxConcurrentCollectionsPerSource(int maxConcurrentCollectionsPerSource) {
+        this.maxConcurrentCollectionsPerSource = maxConcurrentCollectionsPerSource;
+    }
+
+    public int getJobThreads() {
+        return jobThreads;
+    }
+
+    public void setJobThreads(int jobThreads) {
+        this.jobThreads = jobThreads;
+    }
+
+    public int getJobQueueCapacity() {
+        return jobQueueCapacity;
+    }
+
+    public void setJobQueueCapacity(int jobQueueCapacity) {
+        this.jobQueueCapacity = jobQueueCapacity;
+    }
+
+    public long getJobRetentionMinutes() {
+        return jobRetentionMinutes;
+    }
+
+    public void setJobRetentionMinutes(long jobRetentionMinutes) {
+        this.jobRetentionMinutes = jobRetentionMinutes;
+    }
+
+    public int getPersistBatchSize() {
+        return persistBatchSize;
+    }
+
+    public void setPersistBatchSize(int persistBatchSize) {
+        this.persistBatchSize = persistBatchSize;
+    }
+
+    public boolean isWriteFieldRows() {
+        return writeFieldRows;
+    }
+
+    public void setWriteFieldRows(boolean writeFieldRows) {
+        this.writeFieldRows = writeFieldRows;
+    }
+
+    public int getSchemaViewCacheSize() {
+        return schemaViewCacheSize;
+    }
+
+    public void setSchemaViewCacheSize(int schemaViewCacheSize) {
+        this.schemaViewCacheSize = schemaViewCacheSize;
+    }
+}
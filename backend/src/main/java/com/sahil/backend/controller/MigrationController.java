@@ -370,6 +370,103 @@ public class MigrationController {
         }
     }
 
+    @Autowired
+    private com.sahil.backend.service.IncrementalSyncService incrementalSyncService;
+
+    @Autowired
+    private com.sahil.backend.repository.SyncWatermarkRepository syncWatermarkRepository;
+
+    /**
+     * Run an incremental sync pass (documents changed since the stored watermarks)
+     * POST /api/migrations/{migrationId}/sync
+     */
+    @PostMapping("/{migrationId}/sync")
+    public ResponseEntity<?> syncMigration(@PathVariable UUID migrationId) {
+        try {
+            MigrationRun run = incrementalSyncService.syncNow(migrationId);
+
+            ObjectNode response = objectMapper.createObjectNode();
+            response.put("runId", run.getId().toString());
+            response.put("status", run.getStatus());
+            response.put("mode", "incremental");
+
+            return ResponseEntity.ok(response);
+        } catch (IllegalStateException e) {
+            ObjectNode errorResponse = objectMapper.createObjectNode();
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+        } catch (Exception e) {
+            ObjectNode errorResponse = objectMapper.createObjectNode();
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
+    /**
+     * Get the stored sync watermarks and schedule state
+     * GET /api/migrations/{migrationId}/sync
+     */
+    @GetMapping("/{migrationId}/sync")
+    public ResponseEntity<?> getSyncState(@PathVariable UUID migrationId) {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("migrationId", migrationId.toString());
+        response.put("scheduled", incrementalSyncService.isScheduled(migrationId));
+        response.set("watermarks", objectMapper.valueToTree(syncWatermarkRepository.findByMigrationId(migrationId)));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Schedule periodic incremental syncs
+     * POST /api/migrations/{migrationId}/sync/schedule
+     */
+    @PostMapping("/{migrationId}/sync/schedule")
+    public ResponseEntity<?> scheduleSync(
+            @PathVariable UUID migrationId,
+            @RequestBody SyncScheduleRequest request) {
+        if (request.getIntervalSeconds() == null || request.getIntervalSeconds() <= 0) {
+            ObjectNode errorResponse = objectMapper.createObjectNode();
+            errorResponse.put("error", "intervalSeconds must be a positive number");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+
+        incrementalSyncService.schedule(migrationId, request.getIntervalSeconds());
+
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("migrationId", migrationId.toString());
+        response.put("intervalSeconds", request.getIntervalSeconds());
+        response.put("scheduled", true);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Cancel periodic incremental syncs
+     * DELETE /api/migrations/{migrationId}/sync/schedule
+     */
+    @DeleteMapping("/{migrationId}/sync/schedule")
+    public ResponseEntity<?> unscheduleSync(@PathVariable UUID migrationId) {
+        if (!incrementalSyncService.unschedule(migrationId)) {
+            ObjectNode errorResponse = objectMapper.createObjectNode();
+            errorResponse.put("error", "No sync schedule found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Request DTO for incremental sync scheduling
+     */
+    public static class SyncScheduleRequest {
+        private Long intervalSeconds;
+
+        public Long getIntervalSeconds() {
+            return intervalSeconds;
+        }
+
+        public void setIntervalSeconds(Long intervalSeconds) {
+            this.intervalSeconds = intervalSeconds;
+        }
+    }
+
     @GetMapping("/run/{runId}/progress")
     public ResponseEntity<?> getMigrationProgress(@PathVariable UUID runId) {
         try {
@@ -384,4 +481,100 @@ public class MigrationController {
 
     @Autowired
     private com.sahil.backend.repository.MigrationProgressRepository migrationProgressRepository;
+
+    @Autowired
+    private com.sahil.backend.service.SourceReadGovernorService sourceReadGovernorService;
+
+    /**
+     * Get the source read throttle for a running migration
+     * GET /api/migrations/run/{runId}/throttle
+     */
+    @GetMapping("/run/{runId}/throttle")
+    public ResponseEntity<?> getThrottle(@PathVariable UUID runId) {
+        com.sahil.backend.service.SourceReadGovernorService.ClusterState state = sourceReadGovernorService
+                .getRunThrottle(runId);
+
+        if (state == null) {
+            ObjectNode errorResponse = objectMapper.createObjectNode();
+            errorResponse.put("error", "No active run found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        }
+
+        return ResponseEntity.ok(buildThrottleResponse(runId, state));
+    }
+
+    /**
+     * Adjust the source read throttle without restarting the run
+     * PUT /api/migrations/run/{runId}/throttle
+     */
+    @PutMapping("/run/{runId}/throttle")
+    public ResponseEntity<?> updateThrottle(
+            @PathVariable UUID runId,
+            @RequestBody ThrottleRequest request) {
+        try {
+            com.sahil.backend.service.SourceReadGovernorService.ClusterState state = sourceReadGovernorService
+                    .updateRunThrottle(runId, request.getDocsPerSecond(), request.getBytesPerSecond(),
+                            request.getAutoThrottle());
+
+            if (state == null) {
+                ObjectNode errorResponse = objectMapper.createObjectNode();
+                errorResponse.put("error", "No active run found");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+            }
+
+            return ResponseEntity.ok(buildThrottleResponse(runId, state));
+        } catch (Exception e) {
+            ObjectNode errorResponse = objectMapper.createObjectNode();
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
+    private ObjectNode buildThrottleResponse(UUID runId,
+            com.sahil.backend.service.SourceReadGovernorService.ClusterState state) {
+        com.sahil.backend.service.worker.SourceRateLimiter limiter = state.getLimiter();
+
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("runId", runId.toString());
+        response.put("sourceCluster", limiter.getClusterKey());
+        response.put("docsPerSecond", limiter.getDocsPerSecond());
+        response.put("bytesPerSecond", limiter.getBytesPerSecond());
+        response.put("effectiveDocsPerSecond", limiter.getEffectiveDocsPerSecond());
+        response.put("autoThrottle", state.isAutoThrottle());
+        response.put("sourceReadLatencyMs", state.getSourceReadLatencyMs());
+        return response;
+    }
+
+    /**
+     * Request DTO for source read throttle updates (null fields are left unchanged, 0 = unlimited)
+     */
+    public static class ThrottleRequest {
+        private Double docsPerSecond;
+        private Double bytesPerSecond;
+        private Boolean autoThrottle;
+
+        public Double getDocsPerSecond() {
+            return docsPerSecond;
+        }
+
+        public void setDocsPerSecond(Double docsPerSecond) {
+            this.docsPerSecond = docsPerSecond;
+        }
+
+        public Double getBytesPerSecond() {
+            return bytesPerSecond;
+        }
+
+        public void setBytesPerSecond(Double bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        public Boolean getAutoThrottle() {
+            return autoThrottle;
+        }
+
+        public void setAutoThrottle(Boolean autoThrottle) {
+            this.autoThrottle = autoThrottle;
+        }
+    }
 }
@@ -26,7 +26,7 @@ public class MongoAnalysisController {
     private MongoAnalysisOrchestratorService analysisOrchestrator;
 
     @Autowired
-    private MongoSchemaFieldRepository mongoSchemaFieldRepository;
+    private SchemaStore schemaStore;
 
     @Autowired
     private MongoRelationshipRepository mongoRelationshipRepository;
@@ -145,38 +145,41 @@ public class MongoAnalysisController {
             }
 
             int sampleSize = request.getSampleSize() != null ? request.getSampleSize() : 1000;
+            long deadlineMs = request.getDeadlineMs() != null ? request.getDeadlineMs() : 0;
 
             DbConnection conn = request.getDbConnection();
 
+            if (Boolean.TRUE.equals(request.getAsync())) {
+                // Queue as a job and return at once; progress via GET /api/mongo/analysis-jobs/{jobId}
+                int priority = request.getPriority() != null ? request.getPriority() : 0;
+                AnalysisJob job = analysisJobService.submit(
+                        migrationId, conn, sampleSize, deadlineMs, priority);
+
+                ObjectNode response = objectMapper.createObjectNode();
+                response.put("jobId", job.getId().toString());
+                response.put("status", job.getStatus());
+                response.put("migrationId", job.getMigrationId().toString());
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+            }
+
             // Run analysis
             MongoAnalysisOrchestratorService.AnalysisResult result = analysisOrchestrator
-                    .runCompleteAnalysis(migrationId, conn, sampleSize);
+                    .runCompleteAnalysis(migrationId, conn, sampleSize, deadlineMs);
 
             if (result.isSuccess()) {
                 // Save connection info to migration
-                Optional<Migration> migrationOpt = migrationRepository.findById(migrationId);
-                if (migrationOpt.isPresent()) {
-                    Migration migration = migrationOpt.get();
-                    String connectionHash = ConnectionHashUtil.generateHash(
-                            conn.getHost(),
-                            conn.getPort(),
-                            conn.getDatabaseName());
-                    migration.setConnectionHash(connectionHash);
-                    migration.setSourceHost(conn.getHost());
-                    migration.setSourcePort(conn.getPort());
-                    migration.setSourceDatabase(conn.getDatabaseName());
-                    migration.setSourceUsername(conn.getUsername());
-                    migration.setSourcePassword(conn.getPassword());
-                    migration.setLastAnalyzedAt(java.time.LocalDateTime.now());
-                    migration.setHasAnalysis(true);
-                    migrationRepository.save(migration);
-                }
+                analysisOrchestrator.recordAnalyzedSource(migrationId, conn);
 
                 return ResponseEntity.ok(result);
             } else {
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(result);
             }
 
+        } catch (AnalysisJobService.QueueFullException e) {
+            ObjectNode errorResponse = objectMapper.createObjectNode();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
         } catch (Exception e) {
             ObjectNode errorResponse = objectMapper.createObjectNode();
             errorResponse.put("success", false);
@@ -185,6 +188,24 @@ public class MongoAnalysisController {
         }
     }
 
+    @Autowired
+    private com.sahil.backend.service.AnalysisJobService analysisJobService;
+
+    /**
+     * Get an analysis job's status and step-level progress (result once completed)
+     * GET /api/mongo/analysis-jobs/{jobId}
+     */
+    @GetMapping("/analysis-jobs/{jobId}")
+    public ResponseEntity<?> getAnalysisJob(@PathVariable UUID jobId) {
+        Optional<AnalysisJob> job = analysisJobService.getJob(jobId);
+        if (job.isEmpty()) {
+            ObjectNode errorResponse = objectMapper.createObjectNode();
+            errorResponse.put("error", "Analysis job not found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        }
+        return ResponseEntity.ok(job.get());
+    }
+
     /**
      * Get discovered schemas for a migration
      * GET /api/mongo/schema/{migrationId}
@@ -204,20 +225,21 @@ public class MongoAnalysisController {
             }
 
             Schema schema = schemaOpt.get();
-            List<MongoSchemaField> fields = mongoSchemaFieldRepository.findBySchemaId(schema.getId());
+            SchemaStore.SchemaView schemaView = schemaStore.getView(schema.getId());
 
-            // Group fields by collection
+            // Fields grouped by collection, one stored document each
             Map<String, List<MongoSchemaField>> fieldsByCollection = new HashMap<>();
-            for (MongoSchemaField field : fields) {
-                fieldsByCollection
-                        .computeIfAbsent(field.getCollectionName(), k -> new ArrayList<>())
-                        .add(field);
+            for (String collectionName : schemaView.getCollectionNames()) {
+                fieldsByCollection.put(collectionName, schemaView.getCollectionFields(collectionName));
             }
 
             ObjectNode response = objectMapper.createObjectNode();
             response.put("schemaId", schema.getId().toString());
             response.set("collections", objectMapper.valueToTree(fieldsByCollection));
-            response.put("totalFields", fields.size());
+            response.put("totalFields", schemaView.getFieldCount());
+            if (schema.getSchemaJson() != null && schema.getSchemaJson().has("shapes")) {
+                response.set("shapes", schema.getSchemaJson().get("shapes"));
+            }
 
             return ResponseEntity.ok(response);
 
@@ -337,6 +359,56 @@ public class MongoAnalysisController {
         }
     }
 
+    /**
+     * Set the write mode (INSERT or UPSERT) of one table in the latest migration plan
+     * PUT /api/mongo/migration-plan/{migrationId}/tables/{targetTable}/write-mode
+     */
+    @PutMapping("/migration-plan/{migrationId}/tables/{targetTable}/write-mode")
+    public ResponseEntity<?> updateWriteMode(
+            @PathVariable UUID migrationId,
+            @PathVariable String targetTable,
+            @RequestBody Map<String, String> request) {
+        try {
+            String writeMode = request.get("writeMode");
+            if (!"INSERT".equalsIgnoreCase(writeMode) && !"UPSERT".equalsIgnoreCase(writeMode)) {
+                ObjectNode errorResponse = objectMapper.createObjectNode();
+                errorResponse.put("error", "writeMode must be INSERT or UPSERT");
+                return ResponseEntity.badRequest().body(errorResponse);
+            }
+
+            MigrationPlan plan = migrationPlanRepository.findFirstByMigrationIdOrderByCreatedAtDesc(migrationId);
+            if (plan == null) {
+                ObjectNode errorResponse = objectMapper.createObjectNode();
+                errorResponse.put("error", "Migration plan not found");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+            }
+
+            JsonNode tableMappings = plan.getPlanJson().get("tableMappings");
+            boolean updated = false;
+            if (tableMappings != null && tableMappings.isArray()) {
+                for (JsonNode mapping : tableMappings) {
+                    if (targetTable.equals(mapping.path("targetTable").asText())) {
+                        ((ObjectNode) mapping).put("writeMode", writeMode.toUpperCase());
+                        updated = true;
+                    }
+                }
+            }
+
+            if (!updated) {
+                ObjectNode errorResponse = objectMapper.createObjectNode();
+                errorResponse.put("error", "Table not found in migration plan: " + targetTable);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+            }
+
+            return ResponseEntity.ok(migrationPlanRepository.save(plan));
+
+        } catch (Exception e) {
+            ObjectNode errorResponse = objectMapper.createObjectNode();
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
     /**
      * Get collection statistics
      * GET /api/mongo/stats/{migrationId}
@@ -358,19 +430,14 @@ public class MongoAnalysisController {
             Schema schema = schemaOpt.get();
 
             // Gather statistics
-            List<MongoSchemaField> fields = mongoSchemaFieldRepository.findBySchemaId(schema.getId());
+            // Counts come from the stored documents; fields are not decoded
+            SchemaStore.SchemaView schemaView = schemaStore.getView(schema.getId());
             List<MongoRelationship> relationships = mongoRelationshipRepository.findBySchemaId(schema.getId());
             List<MigrationRisk> risks = migrationRiskRepository.findByMigrationId(migrationId);
 
-            // Count collections
-            Set<String> collections = new HashSet<>();
-            for (MongoSchemaField field : fields) {
-                collections.add(field.getCollectionName());
-            }
-
             ObjectNode stats = objectMapper.createObjectNode();
-            stats.put("collectionCount", collections.size());
-            stats.put("totalFields", fields.size());
+            stats.put("collectionCount", schemaView.getCollectionNames().size());
+            stats.put("totalFields", schemaView.getFieldCount());
             stats.put("relationshipCount", relationships.size());
             stats.put("riskCount", risks.size());
             stats.put("analyzed", schema.getAnalyzed());
@@ -390,6 +457,9 @@ public class MongoAnalysisController {
     public static class AnalysisRequest {
         private DbConnection dbConnection;
         private Integer sampleSize;
+        private Long deadlineMs; // Return partial results after this long; pending collections continue
+        private Boolean async; // Queue as a job and return its ID at once
+        private Integer priority; // Job queue priority, higher runs first (default 0)
         private Boolean includeAI;
 
         public DbConnection getDbConnection() {
@@ -408,6 +478,30 @@ public class MongoAnalysisController {
             this.sampleSize = sampleSize;
         }
 
+        public Long getDeadlineMs() {
+            return deadlineMs;
+        }
+
+        public void setDeadlineMs(Long deadlineMs) {
+            this.deadlineMs = deadlineMs;
+        }
+
+        public Boolean getAsync() {
+            return async;
+        }
+
+        public void setAsync(Boolean async) {
+            this.async = async;
+        }
+
+        public Integer getPriority() {
+            return priority;
+        }
+
+        public void setPriority(Integer priority) {
+            this.priority = priority;
+        }
+
         public Boolean getIncludeAI() {
             return includeAI;
         }
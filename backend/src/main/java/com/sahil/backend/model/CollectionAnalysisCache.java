@@ -0,0 +1,111 @@
+package com.sahil.backend.model;
+
+import jakarta.persistence.*;
+import io.hypersistence.utils.hibernate.type.json.JsonType;
+import org.hibernate.annotations.Type;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import com.fasterxml.jackson.databind.JsonNode;
+
+@Entity
+@Table(name = "collection_analysis_cache", uniqueConstraints = @UniqueConstraint(columnNames = {
+        "connection_hash", "collection_name" }))
+public class CollectionAnalysisCache {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "connection_hash")
+    private String connectionHash;
+
+    @Column(name = "collection_name")
+    private String collectionName;
+
+    @Column(name = "fingerprint", columnDefinition = "TEXT")
+    private String fingerprint; // Count, data size and highest _id when the collection was last analyzed
+
+    @Column(name = "schema_id")
+    private UUID schemaId; // Schema holding the fields produced by that analysis
+
+    @Column(name = "sample_count")
+    private Integer sampleCount;
+
+    @Type(JsonType.class)
+    @Column(name = "shape_stats", columnDefinition = "jsonb")
+    private JsonNode shapeStats;
+
+    @Column(name = "analyzed_at")
+    private LocalDateTime analyzedAt;
+
+    public CollectionAnalysisCache() {
+    }
+
+    public CollectionAnalysisCache(String connectionHash, String collectionName) {
+        this.connectionHash = connectionHash;
+        this.collectionName = collectionName;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public String getConnectionHash() {
+        return connectionHash;
+    }
+
+    public void setConnectionHash(String connectionHash) {
+        this.connectionHash = connectionHash;
+    }
+
+    public String getCollectionName() {
+        return collectionName;
+    }
+
+    public void setCollectionName(String collectionName) {
+        this.collectionName = collectionName;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public UUID getSchemaId() {
+        return schemaId;
+    }
+
+    public void setSchemaId(UUID schemaId) {
+        this.schemaId = schemaId;
+    }
+
+    public Integer getSampleCount() {
+        return sampleCount;
+    }
+
+    public void setSampleCount(Integer sampleCount) {
+        this.sampleCount = sampleCount;
+    }
+
+    public JsonNode getShapeStats() {
+        return shapeStats;
+    }
+
+    public void setShapeStats(JsonNode shapeStats) {
+        this.shapeStats = shapeStats;
+    }
+
+    public LocalDateTime getAnalyzedAt() {
+        return analyzedAt;
+    }
+
+    public void setAnalyzedAt(LocalDateTime analyzedAt) {
+        this.analyzedAt = analyzedAt;
+    }
+}
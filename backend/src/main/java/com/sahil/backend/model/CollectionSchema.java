@@ -0,0 +1,92 @@
+package com.sahil.backend.model;
+
+import jakarta.persistence.*;
+import io.hypersistence.utils.hibernate.type.json.JsonType;
+import org.hibernate.annotations.Type;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import com.fasterxml.jackson.databind.JsonNode;
+
+@Entity
+@Table(name = "collection_schemas", uniqueConstraints = @UniqueConstraint(columnNames = {
+        "schema_id", "collection_name" }))
+public class CollectionSchema {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "schema_id")
+    private UUID schemaId;
+
+    @Column(name = "collection_name")
+    private String collectionName;
+
+    @Column(name = "field_count")
+    private Integer fieldCount;
+
+    @Type(JsonType.class)
+    @Column(name = "fields", columnDefinition = "jsonb")
+    private JsonNode fields; // Every analyzed field of the collection with its types and statistics
+
+    @Column(nullable = false, columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
+    private LocalDateTime createdAt;
+
+    public CollectionSchema() {
+    }
+
+    public CollectionSchema(UUID schemaId, String collectionName, JsonNode fields) {
+        this.schemaId = schemaId;
+        this.collectionName = collectionName;
+        this.fields = fields;
+        this.fieldCount = fields.size();
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getSchemaId() {
+        return schemaId;
+    }
+
+    public void setSchemaId(UUID schemaId) {
+        this.schemaId = schemaId;
+    }
+
+    public String getCollectionName() {
+        return collectionName;
+    }
+
+    public void setCollectionName(String collectionName) {
+        this.collectionName = collectionName;
+    }
+
+    public Integer getFieldCount() {
+        return fieldCount;
+    }
+
+    public void setFieldCount(Integer fieldCount) {
+        this.fieldCount = fieldCount;
+    }
+
+    public JsonNode getFields() {
+        return fields;
+    }
+
+    public void setFields(JsonNode fields) {
+        this.fields = fields;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,70 @@
+package com.sahil.backend.model;
+
+/**
+ * Size metadata for a source collection
+ * Counts come from collection metadata unless an exact count was requested
+ */
+public class CollectionStats {
+
+    private final String collectionName;
+    private long documentCount;
+    private long dataSizeBytes; // Uncompressed BSON size, 0 if unknown
+    private long storageSizeBytes; // On-disk size, 0 if unknown
+    private long avgObjSizeBytes; // 0 if unknown
+    private boolean exact; // documentCount came from countDocuments
+
+    public CollectionStats(String collectionName) {
+        this.collectionName = collectionName;
+    }
+
+    public String getCollectionName() {
+        return collectionName;
+    }
+
+    public long getDocumentCount() {
+        return documentCount;
+    }
+
+    public void setDocumentCount(long documentCount) {
+        this.documentCount = documentCount;
+    }
+
+    public long getDataSizeBytes() {
+        return dataSizeBytes;
+    }
+
+    public void setDataSizeBytes(long dataSizeBytes) {
+        this.dataSizeBytes = dataSizeBytes;
+    }
+
+    public long getStorageSizeBytes() {
+        return storageSizeBytes;
+    }
+
+    public void setStorageSizeBytes(long storageSizeBytes) {
+        this.storageSizeBytes = storageSizeBytes;
+    }
+
+    public long getAvgObjSizeBytes() {
+        return avgObjSizeBytes;
+    }
+
+    public void setAvgObjSizeBytes(long avgObjSizeBytes) {
+        this.avgObjSizeBytes = avgObjSizeBytes;
+    }
+
+    public boolean isExact() {
+        return exact;
+    }
+
+    public void setExact(boolean exact) {
+        this.exact = exact;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CollectionStats[collection=%s, count=%d%s, avgObjSize=%d B, dataSize=%d B, storageSize=%d B]",
+                collectionName, documentCount, exact ? "" : " (estimated)", avgObjSizeBytes, dataSizeBytes,
+                storageSizeBytes);
+    }
+}
@@ -11,6 +11,7 @@ public class MigrationMetrics {
     private final AtomicLong documentsProduced = new AtomicLong(0);
     private final AtomicLong documentsConsumed = new AtomicLong(0);
     private final AtomicLong errors = new AtomicLong(0);
+    private volatile long targetReplicationLagMs = -1; // -1 when not monitored
     private final long startTime;
     private final String tableName;
 
@@ -33,6 +34,10 @@ public class MigrationMetrics {
         errors.incrementAndGet();
     }
 
+    public void setTargetReplicationLagMs(long targetReplicationLagMs) {
+        this.targetReplicationLagMs = targetReplicationLagMs;
+    }
+
     // Getter methods
 
     public long getDocumentsProduced() {
@@ -51,6 +56,10 @@ public class MigrationMetrics {
         return tableName;
     }
 
+    public long getTargetReplicationLagMs() {
+        return targetReplicationLagMs;
+    }
+
     // Calculated metrics
 
     public long getElapsedTimeMs() {
@@ -90,8 +99,8 @@ public class MigrationMetrics {
     @Override
     public String toString() {
         return String.format(
-                "MigrationMetrics[table=%s, produced=%d, consumed=%d, errors=%d, throughput=%.2f docs/sec, elapsed=%d sec]",
+                "MigrationMetrics[table=%s, produced=%d, consumed=%d, errors=%d, throughput=%.2f docs/sec, elapsed=%d sec, replicationLag=%d ms]",
                 tableName, documentsProduced.get(), documentsConsumed.get(),
-                errors.get(), getThroughputPerSecond(), getElapsedTimeSec());
+                errors.get(), getThroughputPerSecond(), getElapsedTimeSec(), targetReplicationLagMs);
     }
 }
@@ -26,6 +26,9 @@ public class MigrationRun {
     @Column(name = "ended_at")
     private LocalDateTime endedAt;
 
+    @Column(name = "target_replication_lag_ms")
+    private Long targetReplicationLagMs; // Latest replay lag of target replicas (null when not monitored)
+
     public MigrationRun() {
     }
 
@@ -83,4 +86,12 @@ public class MigrationRun {
     public void setEndedAt(LocalDateTime endedAt) {
         this.endedAt = endedAt;
     }
+
+    public Long getTargetReplicationLagMs() {
+        return targetReplicationLagMs;
+    }
+
+    public void setTargetReplicationLagMs(Long targetReplicationLagMs) {
+        this.targetReplicationLagMs = targetReplicationLagMs;
+    }
 }
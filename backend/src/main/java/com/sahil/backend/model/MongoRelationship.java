@@ -33,7 +33,7 @@ public class MongoRelationship {
     private Double confidence; // 0.0-1.0 confidence score
 
     @Column(name = "detection_method")
-    private String detectionMethod; // OBJECTID, NAMING_CONVENTION, AI_INFERENCE
+    private String detectionMethod; // OBJECTID, OBJECTID_ARRAY, NAMING_CONVENTION, AI_INFERENCE
 
     @Column(nullable = false, columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
     private LocalDateTime createdAt;
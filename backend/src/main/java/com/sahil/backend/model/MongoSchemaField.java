@@ -29,7 +29,15 @@ public class MongoSchemaField {
 
     @Type(JsonType.class)
     @Column(name = "data_types", columnDefinition = "jsonb")
-    private JsonNode dataTypes; // Array of observed types
+    private JsonNode dataTypes; // Array of observed types, most frequent first
+
+    @Type(JsonType.class)
+    @Column(name = "type_counts", columnDefinition = "jsonb")
+    private JsonNode typeCounts; // Occurrences per observed type (e.g., {"int32": 998, "string": 2})
+
+    @Type(JsonType.class)
+    @Column(name = "element_type_counts", columnDefinition = "jsonb")
+    private JsonNode elementTypeCounts; // Element types of scalar arrays (e.g., {"objectId": 120})
 
     @Column
     private Double frequency; // Percentage of documents containing this field (0.0-1.0)
@@ -44,6 +52,10 @@ public class MongoSchemaField {
     @Column(name = "nested_schema", columnDefinition = "jsonb")
     private JsonNode nestedSchema; // For nested objects
 
+    @Type(JsonType.class)
+    @Column(name = "statistics", columnDefinition = "jsonb")
+    private JsonNode statistics; // Sampled value sketches (distinct count, min/max, lengths, top values)
+
     @Column(nullable = false, columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
     private LocalDateTime createdAt;
 
@@ -144,6 +156,30 @@ public class MongoSchemaField {
         this.nestedSchema = nestedSchema;
     }
 
+    public JsonNode getTypeCounts() {
+        return typeCounts;
+    }
+
+    public void setTypeCounts(JsonNode typeCounts) {
+        this.typeCounts = typeCounts;
+    }
+
+    public JsonNode getElementTypeCounts() {
+        return elementTypeCounts;
+    }
+
+    public void setElementTypeCounts(JsonNode elementTypeCounts) {
+        this.elementTypeCounts = elementTypeCounts;
+    }
+
+    public JsonNode getStatistics() {
+        return statistics;
+    }
+
+    public void setStatistics(JsonNode statistics) {
+        this.statistics = statistics;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
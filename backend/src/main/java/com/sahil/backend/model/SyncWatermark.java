@@ -0,0 +1,108 @@
+package com.sahil.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "sync_watermarks")
+public class SyncWatermark {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "migration_id")
+    private UUID migrationId;
+
+    @Column(name = "source_collection")
+    private String sourceCollection;
+
+    @Column(name = "target_table")
+    private String targetTable;
+
+    @Column(name = "watermark_field")
+    private String watermarkField; // Monotonically increasing field (e.g., updatedAt or _id)
+
+    @Column(name = "last_value_json", columnDefinition = "TEXT")
+    private String lastValueJson; // Extended JSON {"v": ...} of the highest synced value, null before first pass
+
+    @Column(name = "last_run_id")
+    private UUID lastRunId;
+
+    @Column(name = "last_synced_at")
+    private LocalDateTime lastSyncedAt;
+
+    public SyncWatermark() {
+    }
+
+    public SyncWatermark(UUID migrationId, String sourceCollection, String targetTable, String watermarkField) {
+        this.migrationId = migrationId;
+        this.sourceCollection = sourceCollection;
+        this.targetTable = targetTable;
+        this.watermarkField = watermarkField;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getMigrationId() {
+        return migrationId;
+    }
+
+    public void setMigrationId(UUID migrationId) {
+        this.migrationId = migrationId;
+    }
+
+    public String getSourceCollection() {
+        return sourceCollection;
+    }
+
+    public void setSourceCollection(String sourceCollection) {
+        this.sourceCollection = sourceCollection;
+    }
+
+    public String getTargetTable() {
+        return targetTable;
+    }
+
+    public void setTargetTable(String targetTable) {
+        this.targetTable = targetTable;
+    }
+
+    public String getWatermarkField() {
+        return watermarkField;
+    }
+
+    public void setWatermarkField(String watermarkField) {
+        this.watermarkField = watermarkField;
+    }
+
+    public String getLastValueJson() {
+        return lastValueJson;
+    }
+
+    public void setLastValueJson(String lastValueJson) {
+        this.lastValueJson = lastValueJson;
+    }
+
+    public UUID getLastRunId() {
+        return lastRunId;
+    }
+
+    public void setLastRunId(UUID lastRunId) {
+        this.lastRunId = lastRunId;
+    }
+
+    public LocalDateTime getLastSyncedAt() {
+        return lastSyncedAt;
+    }
+
+    public void setLastSyncedAt(LocalDateTime lastSyncedAt) {
+        this.lastSyncedAt = lastSyncedAt;
+    }
+}
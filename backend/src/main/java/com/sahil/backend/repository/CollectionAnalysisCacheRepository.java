@@ -0,0 +1,14 @@
+package com.sahil.backend.repository;
+
+import com.sahil.backend.model.CollectionAnalysisCache;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface CollectionAnalysisCacheRepository extends JpaRepository<CollectionAnalysisCache, UUID> {
+    Optional<CollectionAnalysisCache> findByConnectionHashAndCollectionName(String connectionHash,
+            String collectionName);
+}
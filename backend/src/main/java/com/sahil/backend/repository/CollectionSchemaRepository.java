@@ -0,0 +1,16 @@
+package com.sahil.backend.repository;
+
+import com.sahil.backend.model.CollectionSchema;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface CollectionSchemaRepository extends JpaRepository<CollectionSchema, UUID> {
+    List<CollectionSchema> findBySchemaId(UUID schemaId);
+
+    Optional<CollectionSchema> findBySchemaIdAndCollectionName(UUID schemaId, String collectionName);
+}
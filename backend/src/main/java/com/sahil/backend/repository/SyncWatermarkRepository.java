@@ -0,0 +1,16 @@
+package com.sahil.backend.repository;
+
+import com.sahil.backend.model.SyncWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface SyncWatermarkRepository extends JpaRepository<SyncWatermark, UUID> {
+    List<SyncWatermark> findByMigrationId(UUID migrationId);
+
+    Optional<SyncWatermark> findByMigrationIdAndTargetTable(UUID migrationId, String targetTable);
+}
@@ -0,0 +1,122 @@
+package com.sahil.backend.service;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An analysis queued on the job executor and its step-level progress
+ * Status moves QUEUED -> RUNNING -> COMPLETED or FAILED; step names the pipeline
+ * stage being run (CONNECTING, SAMPLING, RELATIONSHIPS, RISKS, PLAN, or PARTIAL when
+ * a deadline returned early and pending collections continue in the background)
+ */
+public class AnalysisJob {
+
+    private final UUID id = UUID.randomUUID();
+    private final UUID migrationId;
+    private final String connectionHash;
+    private final int priority;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private volatile String status = "QUEUED";
+    private volatile String step;
+    private volatile int collectionsTotal;
+    private final AtomicInteger collectionsDone = new AtomicInteger();
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile MongoAnalysisOrchestratorService.AnalysisResult result;
+    private volatile String error;
+
+    public AnalysisJob(UUID migrationId, String connectionHash, int priority) {
+        this.migrationId = migrationId;
+        this.connectionHash = connectionHash;
+        this.priority = priority;
+    }
+
+    void start() {
+        startedAt = LocalDateTime.now();
+        status = "RUNNING";
+    }
+
+    void complete(MongoAnalysisOrchestratorService.AnalysisResult result) {
+        this.result = result;
+        finishedAt = LocalDateTime.now();
+        status = "COMPLETED";
+    }
+
+    void fail(String error) {
+        this.error = error;
+        finishedAt = LocalDateTime.now();
+        status = "FAILED";
+    }
+
+    public boolean isFinished() {
+        return finishedAt != null;
+    }
+
+    // Progress, reported by the orchestrator
+
+    public void setStep(String step) {
+        this.step = step;
+    }
+
+    public void setCollectionsTotal(int collectionsTotal) {
+        this.collectionsTotal = collectionsTotal;
+    }
+
+    public void collectionFinished() {
+        collectionsDone.incrementAndGet();
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public UUID getMigrationId() {
+        return migrationId;
+    }
+
+    public String getConnectionHash() {
+        return connectionHash;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getStep() {
+        return step;
+    }
+
+    public int getCollectionsTotal() {
+        return collectionsTotal;
+    }
+
+    public int getCollectionsDone() {
+        return collectionsDone.get();
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public MongoAnalysisOrchestratorService.AnalysisResult getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
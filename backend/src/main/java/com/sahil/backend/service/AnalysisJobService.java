@@ -0,0 +1,179 @@
+package com.sahil.backend.service;
+
+import com.sahil.backend.config.MongoAnalysisConfig;
+import com.sahil.backend.model.DbConnection;
+import com.sahil.backend.util.ConnectionHashUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs analyses as background jobs on a bounded executor
+ * Queued jobs start in priority order (FIFO within a priority); a request for a
+ * migration and connection that already have a job queued or running joins that job.
+ * Schemas and plans belong to one migration, so other migrations get their own job.
+ */
+@Service
+public class AnalysisJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisJobService.class);
+
+    @Autowired
+    private MongoAnalysisOrchestratorService analysisOrchestrator;
+
+    @Autowired
+    private MongoAnalysisConfig analysisConfig;
+
+    private ThreadPoolExecutor jobExecutor;
+    private final Map<UUID, AnalysisJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, AnalysisJob> inFlight = new ConcurrentHashMap<>(); // By migration and connection hash
+    private final AtomicLong sequence = new AtomicLong();
+
+    @PostConstruct
+    void initJobExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        jobExecutor = new ThreadPoolExecutor(analysisConfig.getJobThreads(), analysisConfig.getJobThreads(),
+                0L, TimeUnit.MILLISECONDS, new BoundedPriorityQueue<>(analysisConfig.getJobQueueCapacity()), r -> {
+                    Thread t = new Thread(r, "analysis-job-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    void shutdownJobExecutor() {
+        jobExecutor.shutdownNow();
+    }
+
+    /**
+     * Queues an analysis, or returns the job already in flight for the same migration and connection
+     */
+    public AnalysisJob submit(UUID migrationId, DbConnection dbConnection, int sampleSize, long deadlineMs,
+            int priority) {
+        pruneFinishedJobs();
+
+        String connectionHash = ConnectionHashUtil.generateHash(
+                dbConnection.getHost(), dbConnection.getPort(), dbConnection.getDatabaseName());
+        AnalysisJob job = new AnalysisJob(migrationId, connectionHash, priority);
+        AnalysisJob existing = inFlight.putIfAbsent(inFlightKey(job), job);
+        if (existing != null) {
+            logger.info("Analysis request for migration {} joined job {}", migrationId, existing.getId());
+            return existing;
+        }
+
+        jobs.put(job.getId(), job);
+        try {
+            jobExecutor.execute(new QueuedJob(job, sequence.incrementAndGet(),
+                    () -> run(job, dbConnection, sampleSize, deadlineMs)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            inFlight.remove(inFlightKey(job), job);
+            throw new QueueFullException("Analysis queue is full; try again later");
+        }
+        return job;
+    }
+
+    public Optional<AnalysisJob> getJob(UUID jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void run(AnalysisJob job, DbConnection dbConnection, int sampleSize, long deadlineMs) {
+        job.start();
+        try {
+            MongoAnalysisOrchestratorService.AnalysisResult result = analysisOrchestrator.runCompleteAnalysis(
+                    job.getMigrationId(), dbConnection, sampleSize, deadlineMs, job);
+            if (result.isSuccess()) {
+                analysisOrchestrator.recordAnalyzedSource(job.getMigrationId(), dbConnection);
+                job.complete(result);
+            } else {
+                job.fail(result.getError());
+            }
+        } catch (Exception e) {
+            logger.error("Analysis job {} failed", job.getId(), e);
+            job.fail(e.getMessage());
+        } finally {
+            inFlight.remove(inFlightKey(job), job);
+        }
+    }
+
+    private static String inFlightKey(AnalysisJob job) {
+        return job.getMigrationId() + ":" + job.getConnectionHash();
+    }
+
+    private void pruneFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(analysisConfig.getJobRetentionMinutes());
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    /**
+     * Executor task ordered by priority (higher first), then submission order
+     */
+    private static final class QueuedJob implements Runnable, Comparable<QueuedJob> {
+        private final AnalysisJob job;
+        private final long sequence;
+        private final Runnable task;
+
+        QueuedJob(AnalysisJob job, long sequence, Runnable task) {
+            this.job = job;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public int compareTo(QueuedJob other) {
+            int byPriority = Integer.compare(other.job.getPriority(), job.getPriority());
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Thrown by submit when the job queue is at capacity; the request may be retried later
+     */
+    public static class QueueFullException extends RuntimeException {
+        public QueueFullException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Priority queue that refuses offers beyond its capacity, so the executor rejects
+     * the job instead of queueing it; offers are serialized so the bound is exact
+     */
+    private static final class BoundedPriorityQueue<E> extends PriorityBlockingQueue<E> {
+        private final int capacity;
+
+        BoundedPriorityQueue(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public synchronized boolean offer(E e) {
+            return size() < capacity && super.offer(e);
+        }
+
+        @Override
+        public int remainingCapacity() {
+            return Math.max(0, capacity - size());
+        }
+    }
+}
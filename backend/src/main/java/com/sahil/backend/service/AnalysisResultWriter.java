@@ -0,0 +1,45 @@
+package com.sahil.backend.service;
+
+import com.sahil.backend.config.MongoAnalysisConfig;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Bulk inserts of newly created analysis entities (schema fields, relationships, risks)
+ * Entities are persisted in one transaction and flushed every persistBatchSize, so
+ * Hibernate sends them as JDBC batches (hibernate.jdbc.batch_size, ordered inserts) and
+ * the persistence context never holds more than one batch. Unlike saveAll there is no
+ * per-entity isNew/merge check, so callers must only pass entities without an id.
+ */
+@Service
+public class AnalysisResultWriter {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MongoAnalysisConfig analysisConfig;
+
+    /**
+     * Inserts the entities and returns them (detached, with generated ids)
+     */
+    @Transactional
+    public <T> List<T> insertAll(List<T> entities) {
+        int batchSize = Math.max(1, analysisConfig.getPersistBatchSize());
+        for (int i = 0; i < entities.size(); i++) {
+            entityManager.persist(entities.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return entities;
+    }
+}
@@ -0,0 +1,98 @@
+package com.sahil.backend.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Hash index from normalized collection name variants to collection names
+ * Names are normalized case-insensitively with '_' and '-' removed, so snake_case and
+ * camelCase spellings meet ("order_items", "orderItems"); each collection is indexed under
+ * its normalized name and its singular form. A lookup is one or two map probes, independent
+ * of the number of collections.
+ */
+public class CollectionNameIndex {
+
+    private final Map<String, String> index = new HashMap<>();
+
+    public CollectionNameIndex(List<String> collectionNames) {
+        // Exact names take precedence over singular forms of other collections
+        for (String name : collectionNames) {
+            index.putIfAbsent(normalize(name), name);
+        }
+        for (String name : collectionNames) {
+            index.putIfAbsent(singular(normalize(name)), name);
+        }
+    }
+
+    /**
+     * Collection a reference field points to by naming convention (user_id, userId,
+     * customerID -> users / user / customers), or null
+     */
+    public String inferTargetCollection(String fieldName) {
+        String baseName = referenceBaseName(fieldName);
+        return baseName != null ? find(baseName) : null;
+    }
+
+    /**
+     * Collection an array of references points to (tag_ids, tagIds, tagIDs, tags -> tags), or null
+     */
+    public String inferArrayTargetCollection(String fieldName) {
+        String baseName = arrayReferenceBaseName(fieldName);
+        return find(baseName != null ? baseName : fieldName);
+    }
+
+    /**
+     * Collection matching the name directly, in plural or in singular form, or null
+     */
+    public String find(String baseName) {
+        String key = normalize(baseName);
+        String collection = index.get(key);
+        return collection != null ? collection : index.get(singular(key));
+    }
+
+    private static String referenceBaseName(String fieldName) {
+        if (fieldName.length() > 3 && fieldName.endsWith("_id")) {
+            return fieldName.substring(0, fieldName.length() - 3);
+        }
+        if (fieldName.length() > 2 && (fieldName.endsWith("Id") || fieldName.endsWith("ID"))) {
+            return fieldName.substring(0, fieldName.length() - 2);
+        }
+        return null;
+    }
+
+    private static String arrayReferenceBaseName(String fieldName) {
+        if (fieldName.length() > 4 && fieldName.endsWith("_ids")) {
+            return fieldName.substring(0, fieldName.length() - 4);
+        }
+        if (fieldName.length() > 3 && (fieldName.endsWith("Ids") || fieldName.endsWith("IDs"))) {
+            return fieldName.substring(0, fieldName.length() - 3);
+        }
+        return null;
+    }
+
+    static String normalize(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c != '_' && c != '-') {
+                sb.append(c);
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    static String singular(String name) {
+        if (name.endsWith("ies") && name.length() > 3) {
+            return name.substring(0, name.length() - 3) + "y"; // categories -> category
+        }
+        if (name.endsWith("sses") || name.endsWith("xes") || name.endsWith("ches") || name.endsWith("shes")) {
+            return name.substring(0, name.length() - 2); // addresses -> address, boxes -> box
+        }
+        if (name.endsWith("s") && !name.endsWith("ss") && name.length() > 1) {
+            return name.substring(0, name.length() - 1);
+        }
+        return name;
+    }
+}
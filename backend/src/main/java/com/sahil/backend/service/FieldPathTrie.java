@@ -0,0 +1,465 @@
+package com.sahil.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sahil.backend.util.BsonTypes;
+import com.sahil.backend.util.HyperLogLog;
+import org.bson.Document;
+
+import java.util.*;
+
+/**
+ * Accumulates field statistics over sampled documents as a trie of path segments
+ * Nodes are resolved by key and hold primitive counters and a value sketch, so visiting
+ * a field builds no path string; dotted paths are only built once, when results are emitted
+ *
+ * Documents are fingerprinted by shape (ordered keys and their types). The trie is only
+ * walked for the first document of a shape; later documents of that shape add to its weight
+ * and feed their values straight into the sketches recorded for it. Documents inside arrays
+ * are shapes of their own under the array's element node, and an array contributes only the
+ * set of its elements' shapes to the parent's fingerprint, so array lengths do not multiply
+ * shapes and a shape's size does not grow with its arrays.
+ */
+public class FieldPathTrie {
+
+    // Segment under which fields of documents inside arrays are recorded ("items[].name")
+    private static final String ARRAY_ELEMENT = "[]";
+
+    private static final int MAX_SHAPE_KEYS = 20; // Top-level keys reported per shape
+
+    private static final int NO_ELEMENT = -1; // Touched node is not a non-empty scalar array
+    private static final int DOCUMENT_ELEMENTS = -2; // Touched node is an array of documents
+
+    private final Node root = new Node();
+    private final int maxDepth;
+    private final Map<Long, Shape> shapes = new HashMap<>(); // By fingerprint and context node, chained
+    private final List<Shape> allShapes = new ArrayList<>();
+    private int documentShapeCount; // Shapes of top-level documents
+    private int documentCount;
+
+    public FieldPathTrie(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Adds one document's fields to the counters
+     */
+    public void accept(Document doc) {
+        Scan scan = new Scan();
+        scan.fingerprint = fingerprint(doc, 0, scan);
+        acceptAt(root, doc, 0, scan);
+        documentCount++;
+    }
+
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    public int getShapeCount() {
+        return documentShapeCount;
+    }
+
+    /**
+     * Adds a document (top-level, or an array element under its element node) to the
+     * shape it matches, then its arrays' elements to theirs
+     */
+    private void acceptAt(Node context, Document doc, int depth, Scan scan) {
+        long key = HyperLogLog.hash(scan.fingerprint * 31 + System.identityHashCode(context));
+        Shape head = shapes.get(key);
+        Shape shape = head;
+        while (shape != null && !matches(shape, context, doc, depth)) {
+            shape = shape.next; // Fingerprint collision
+        }
+        if (shape == null) {
+            // New shape: resolve its nodes once
+            shape = new Shape(scan.fingerprint, context);
+            record(doc, context, depth, shape);
+            shape.seal(doc.keySet());
+            shape.next = head;
+            shapes.put(key, shape);
+            allShapes.add(shape);
+            if (context == root) {
+                documentShapeCount++;
+            }
+        }
+
+        shape.count++;
+        for (int i = 0; i < scan.values.size(); i++) {
+            shape.valueSlots[i].sketch().add(scan.values.get(i));
+        }
+        for (int i = 0; i < shape.elementNodes.length; i++) {
+            List<Document> elements = scan.elements.get(i);
+            List<Scan> elementScans = scan.elementScans.get(i);
+            for (int j = 0; j < elements.size(); j++) {
+                acceptAt(shape.elementNodes[i], elements.get(j), shape.elementDepths[i], elementScans.get(j));
+            }
+        }
+    }
+
+    /**
+     * Order-sensitive structural hash of a document's keys and types; collects its sketched
+     * values in the order record() resolves their nodes. Arrays of documents add the set of
+     * their elements' fingerprints (not their length or order), and the elements are scanned
+     * separately to be accepted under the array's element node.
+     */
+    private long fingerprint(Document doc, int depth, Scan scan) {
+        long h = HyperLogLog.hash(doc.size());
+        for (Map.Entry<String, Object> entry : doc.entrySet()) {
+            Object value = entry.getValue();
+            int type = BsonTypes.ordinal(value);
+            h = HyperLogLog.hash(h * 31 + entry.getKey().hashCode());
+            h = HyperLogLog.hash(h * 31 + type);
+
+            if (isSketched(type)) {
+                scan.values.add(value);
+            }
+
+            if (depth >= maxDepth) {
+                continue;
+            }
+
+            if (type == BsonTypes.ARRAY) {
+                List<?> list = (List<?>) value;
+                if (!list.isEmpty() && list.get(0) instanceof Document) {
+                    List<Document> elements = new ArrayList<>(list.size());
+                    List<Scan> elementScans = new ArrayList<>(list.size());
+                    long[] elementFingerprints = new long[list.size()];
+                    for (int i = 0; i < list.size(); i++) {
+                        if (list.get(i) instanceof Document) {
+                            Scan elementScan = new Scan();
+                            elementScan.fingerprint = fingerprint((Document) list.get(i), depth + 1, elementScan);
+                            elements.add((Document) list.get(i));
+                            elementScans.add(elementScan);
+                            elementFingerprints[i] = elementScan.fingerprint;
+                        }
+                    }
+                    scan.elements.add(elements);
+                    scan.elementScans.add(elementScans);
+                    h = HyperLogLog.hash(h * 31 + distinctHash(elementFingerprints));
+                } else if (!list.isEmpty()) {
+                    // Element type of scalar arrays is part of the shape
+                    h = HyperLogLog.hash(h * 31 + BsonTypes.NAMES.length + BsonTypes.ordinal(list.get(0)));
+                }
+            } else if (type == BsonTypes.OBJECT) {
+                h = HyperLogLog.hash(h * 31 + fingerprint((Document) value, depth + 1, scan));
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Hash of the distinct values, independent of their order and repetitions
+     */
+    private static long distinctHash(long[] fingerprints) {
+        long[] sorted = fingerprints.clone();
+        Arrays.sort(sorted);
+        long h = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                h = HyperLogLog.hash(h * 31 + sorted[i]);
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Resolves the nodes a document of this shape touches, in fingerprint order; array
+     * elements are only registered by their element node, they are shapes of their own
+     */
+    private void record(Document doc, Node parent, int depth, Shape shape) {
+        for (Map.Entry<String, Object> entry : doc.entrySet()) {
+            Object value = entry.getValue();
+            Node node = parent.child(entry.getKey());
+
+            int type = BsonTypes.ordinal(value);
+            if (isSketched(type)) {
+                shape.slot(node);
+            }
+
+            if (depth >= maxDepth) {
+                shape.touch(entry.getKey(), depth, node, type, NO_ELEMENT);
+                continue;
+            }
+
+            int elementType = elementType(value, type);
+            shape.touch(entry.getKey(), depth, node, type, elementType);
+
+            if (type == BsonTypes.ARRAY) {
+                node.isArray = true;
+                if (elementType == DOCUMENT_ELEMENTS) {
+                    // Nested documents in the array are accepted under the element node
+                    shape.elements(node.child(ARRAY_ELEMENT), depth + 1);
+                }
+            } else if (type == BsonTypes.OBJECT) {
+                // Analyze nested document
+                node.isNested = true;
+                record((Document) value, node, depth + 1, shape);
+            }
+        }
+    }
+
+    /**
+     * Whether the document has exactly the shape's paths and types; guards against
+     * fingerprint collisions by comparing keys in record() order, with their depths
+     */
+    private boolean matches(Shape shape, Node context, Document doc, int depth) {
+        return shape.context == context && match(doc, depth, shape, 0) == shape.touchedKeys.length;
+    }
+
+    private int match(Document doc, int depth, Shape shape, int index) {
+        for (Map.Entry<String, Object> entry : doc.entrySet()) {
+            if (index >= shape.touchedKeys.length) {
+                return -1;
+            }
+            Object value = entry.getValue();
+            int type = BsonTypes.ordinal(value);
+            int elementType = depth < maxDepth ? elementType(value, type) : NO_ELEMENT;
+            if (type != shape.touchedTypes[index] || depth != shape.touchedDepths[index]
+                    || elementType != shape.touchedElementTypes[index]
+                    || !entry.getKey().equals(shape.touchedKeys[index])) {
+                return -1;
+            }
+            index++;
+
+            if (depth < maxDepth && type == BsonTypes.OBJECT) {
+                index = match((Document) value, depth + 1, shape, index);
+                if (index < 0) {
+                    return -1;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * First-element type of a non-empty scalar array, DOCUMENT_ELEMENTS for an array
+     * of documents, NO_ELEMENT otherwise
+     */
+    private static int elementType(Object value, int type) {
+        if (type != BsonTypes.ARRAY || ((List<?>) value).isEmpty()) {
+            return NO_ELEMENT;
+        }
+        Object first = ((List<?>) value).get(0);
+        return first instanceof Document ? DOCUMENT_ELEMENTS : BsonTypes.ordinal(first);
+    }
+
+    private static boolean isSketched(int type) {
+        return type != BsonTypes.NULL && type != BsonTypes.ARRAY && type != BsonTypes.OBJECT
+                && type != BsonTypes.BINARY;
+    }
+
+    /**
+     * Emits one FieldInfo per observed path, keyed by dotted path
+     */
+    public Map<String, MongoSamplerService.FieldInfo> toFieldStats() {
+        // Weight each shape's nodes by the documents seen since the last emit
+        for (Shape shape : allShapes) {
+            shape.applyCounts();
+        }
+
+        Map<String, MongoSamplerService.FieldInfo> fieldStats = new HashMap<>();
+        emit(root, new StringBuilder(), fieldStats);
+        return fieldStats;
+    }
+
+    private void emit(Node node, StringBuilder path, Map<String, MongoSamplerService.FieldInfo> out) {
+        for (Map.Entry<String, Node> entry : node.children.entrySet()) {
+            String key = entry.getKey();
+            Node child = entry.getValue();
+            int mark = path.length();
+
+            if (ARRAY_ELEMENT.equals(key)) {
+                path.append(ARRAY_ELEMENT);
+            } else {
+                if (mark > 0) {
+                    path.append('.');
+                }
+                path.append(key);
+            }
+
+            if (child.count > 0) {
+                String fieldPath = path.toString();
+                MongoSamplerService.FieldInfo info = new MongoSamplerService.FieldInfo(
+                        fieldPath, child.count, child.typeCounts(), child.isArray, child.isNested, child.sketch);
+                info.setElementTypeCounts(child.elementTypeCounts());
+                out.put(fieldPath, info);
+            }
+            emit(child, path, out);
+            path.setLength(mark);
+        }
+    }
+
+    /**
+     * Shape distribution: number of distinct shapes and the most common ones with their share;
+     * shapes of array elements are only counted in elementShapes
+     */
+    public ObjectNode toShapeStats(ObjectMapper objectMapper, int limit) {
+        List<Shape> sorted = new ArrayList<>();
+        for (Shape shape : allShapes) {
+            if (shape.context == root) {
+                sorted.add(shape);
+            }
+        }
+        sorted.sort((a, b) -> Integer.compare(b.count, a.count));
+
+        ObjectNode stats = objectMapper.createObjectNode();
+        stats.put("documents", documentCount);
+        stats.put("distinctShapes", documentShapeCount);
+        stats.put("elementShapes", allShapes.size() - documentShapeCount);
+
+        ArrayNode top = objectMapper.createArrayNode();
+        for (Shape shape : sorted.subList(0, Math.min(limit, sorted.size()))) {
+            ObjectNode item = objectMapper.createObjectNode();
+            item.put("fingerprint", Long.toHexString(shape.fingerprint));
+            item.put("count", shape.count);
+            item.put("share", documentCount > 0 ? (double) shape.count / documentCount : 0);
+            item.put("fieldCount", shape.touchedNodes.length);
+            ArrayNode keys = objectMapper.createArrayNode();
+            shape.keys.forEach(keys::add);
+            item.set("keys", keys);
+            top.add(item);
+        }
+        stats.set("topShapes", top);
+        return stats;
+    }
+
+    /**
+     * Fingerprint, sketched values and array elements of one document, collected in one pass
+     */
+    private static final class Scan {
+        private long fingerprint;
+        private final List<Object> values = new ArrayList<>();
+        private final List<List<Document>> elements = new ArrayList<>(); // Per array of documents
+        private final List<List<Scan>> elementScans = new ArrayList<>();
+    }
+
+    private static final class Shape {
+        private final long fingerprint;
+        private final Node context; // Root, or the element node of the array holding these documents
+        private Shape next; // Next shape with the same fingerprint
+        private int count;
+        private int appliedCount; // Documents already added to node counters
+
+        // Collected while recording, then frozen into arrays
+        private List<String> touchedKeyList = new ArrayList<>();
+        private List<Integer> touchedDepthList = new ArrayList<>();
+        private List<Node> touchedList = new ArrayList<>();
+        private List<Integer> touchedTypeList = new ArrayList<>();
+        private List<Integer> touchedElementTypeList = new ArrayList<>();
+        private List<Node> slotList = new ArrayList<>();
+        private List<Node> elementNodeList = new ArrayList<>();
+        private List<Integer> elementDepthList = new ArrayList<>();
+
+        private String[] touchedKeys; // Key of each touched node, compared on lookup
+        private int[] touchedDepths;
+        private Node[] touchedNodes;
+        private int[] touchedTypes;
+        private int[] touchedElementTypes; // See elementType()
+        private Node[] valueSlots; // Node of each sketched value, in fingerprint order
+        private Node[] elementNodes; // Element node of each array of documents, in fingerprint order
+        private int[] elementDepths;
+        private List<String> keys;
+
+        Shape(long fingerprint, Node context) {
+            this.fingerprint = fingerprint;
+            this.context = context;
+        }
+
+        void touch(String key, int depth, Node node, int type, int elementType) {
+            touchedKeyList.add(key);
+            touchedDepthList.add(depth);
+            touchedList.add(node);
+            touchedTypeList.add(type);
+            touchedElementTypeList.add(elementType);
+        }
+
+        void slot(Node node) {
+            slotList.add(node);
+        }
+
+        void elements(Node elementNode, int depth) {
+            elementNodeList.add(elementNode);
+            elementDepthList.add(depth);
+        }
+
+        void seal(Set<String> topLevelKeys) {
+            touchedKeys = touchedKeyList.toArray(new String[0]);
+            touchedDepths = touchedDepthList.stream().mapToInt(Integer::intValue).toArray();
+            touchedNodes = touchedList.toArray(new Node[0]);
+            touchedTypes = touchedTypeList.stream().mapToInt(Integer::intValue).toArray();
+            touchedElementTypes = touchedElementTypeList.stream().mapToInt(Integer::intValue).toArray();
+            valueSlots = slotList.toArray(new Node[0]);
+            elementNodes = elementNodeList.toArray(new Node[0]);
+            elementDepths = elementDepthList.stream().mapToInt(Integer::intValue).toArray();
+            keys = new ArrayList<>(topLevelKeys).subList(0, Math.min(MAX_SHAPE_KEYS, topLevelKeys.size()));
+            touchedKeyList = null;
+            touchedDepthList = null;
+            touchedList = null;
+            touchedTypeList = null;
+            touchedElementTypeList = null;
+            slotList = null;
+            elementNodeList = null;
+            elementDepthList = null;
+        }
+
+        void applyCounts() {
+            int delta = count - appliedCount;
+            if (delta == 0) {
+                return;
+            }
+            for (int i = 0; i < touchedNodes.length; i++) {
+                touchedNodes[i].count += delta;
+                touchedNodes[i].typeCounts[touchedTypes[i]] += delta;
+                if (touchedElementTypes[i] >= 0) {
+                    touchedNodes[i].elementTypeCounts[touchedElementTypes[i]] += delta;
+                }
+            }
+            appliedCount = count;
+        }
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>(8);
+        private final int[] typeCounts = new int[BsonTypes.NAMES.length];
+        private final int[] elementTypeCounts = new int[BsonTypes.NAMES.length]; // Of scalar arrays
+        private int count;
+        private boolean isArray;
+        private boolean isNested;
+        private FieldSketch sketch; // Created on the first scalar value
+
+        FieldSketch sketch() {
+            if (sketch == null) {
+                sketch = new FieldSketch();
+            }
+            return sketch;
+        }
+
+        Node child(String key) {
+            Node child = children.get(key);
+            if (child == null) {
+                child = new Node();
+                children.put(key, child);
+            }
+            return child;
+        }
+
+        Map<String, Integer> typeCounts() {
+            return named(typeCounts);
+        }
+
+        Map<String, Integer> elementTypeCounts() {
+            return named(elementTypeCounts);
+        }
+
+        private static Map<String, Integer> named(int[] countsByOrdinal) {
+            Map<String, Integer> counts = new HashMap<>();
+            for (int i = 0; i < countsByOrdinal.length; i++) {
+                if (countsByOrdinal[i] > 0) {
+                    counts.put(BsonTypes.NAMES[i], countsByOrdinal[i]);
+                }
+            }
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.sahil.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sahil.backend.util.HyperLogLog;
+import org.bson.types.ObjectId;
+
+import java.util.*;
+
+/**
+ * Mergeable value statistics for one field path
+ * Distinct count (HyperLogLog), numeric and date min/max, string length
+ * distribution and approximate top-K values (Space-Saving)
+ */
+public class FieldSketch {
+
+    private static final int HLL_PRECISION = 11;
+    private static final int TOP_K = 10;
+    private static final int TOP_K_CAPACITY = 4 * TOP_K; // Counters kept by Space-Saving
+    private static final int MAX_TOP_VALUE_LENGTH = 64;
+    private static final int MAX_TRACKED_LENGTH = 65535; // Longer strings share the last bucket
+
+    private final HyperLogLog distinct = new HyperLogLog(HLL_PRECISION);
+    private long valueCount;
+
+    // Numeric (and date, as epoch millis) range
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    // String lengths: count per length, grown on demand
+    private int[] lengthCounts = new int[0];
+    private long stringCount;
+    private int maxLength;
+
+    // Space-Saving counters: value -> {count, overestimate}
+    private final Map<String, long[]> topValues = new HashMap<>();
+
+    /**
+     * Adds one scalar value; containers and nulls are not sketched
+     */
+    public void add(Object value) {
+        if (value == null || value instanceof List || value instanceof org.bson.Document) {
+            return;
+        }
+        valueCount++;
+
+        String key;
+        if (value instanceof String) {
+            String s = (String) value;
+            distinct.addHash(HyperLogLog.hash(s));
+            addLength(s.length());
+            key = s;
+        } else if (value instanceof Number) {
+            Number n = (Number) value;
+            double d = n.doubleValue();
+            distinct.addHash(value instanceof Double
+                    ? HyperLogLog.hash(Double.doubleToLongBits(d))
+                    : HyperLogLog.hash(n.longValue()));
+            addRange(d);
+            key = value.toString();
+        } else if (value instanceof Date) {
+            long millis = ((Date) value).getTime();
+            distinct.addHash(HyperLogLog.hash(millis));
+            addRange(millis);
+            key = null; // Timestamps are rarely useful as top values
+        } else if (value instanceof ObjectId) {
+            distinct.addHash(HyperLogLog.hash(((ObjectId) value).toHexString()));
+            key = null; // Unique by construction
+        } else {
+            key = value.toString();
+            distinct.addHash(HyperLogLog.hash(key));
+        }
+
+        if (key != null) {
+            addTopValue(key.length() > MAX_TOP_VALUE_LENGTH ? key.substring(0, MAX_TOP_VALUE_LENGTH) : key, 1, 0);
+        }
+    }
+
+    private void addRange(double d) {
+        if (d < min) {
+            min = d;
+        }
+        if (d > max) {
+            max = d;
+        }
+    }
+
+    private void addLength(int length) {
+        int bucket = Math.min(length, MAX_TRACKED_LENGTH);
+        if (bucket >= lengthCounts.length) {
+            lengthCounts = Arrays.copyOf(lengthCounts, Math.max(bucket + 1, lengthCounts.length * 2));
+        }
+        lengthCounts[bucket]++;
+        stringCount++;
+        if (length > maxLength) {
+            maxLength = length;
+        }
+    }
+
+    private void addTopValue(String key, long count, long error) {
+        long[] counter = topValues.get(key);
+        if (counter != null) {
+            counter[0] += count;
+            counter[1] += error;
+            return;
+        }
+        if (topValues.size() < TOP_K_CAPACITY) {
+            topValues.put(key, new long[] { count, error });
+            return;
+        }
+
+        // Replace the smallest counter, inheriting its count as the overestimate
+        String minKey = null;
+        long minCount = Long.MAX_VALUE;
+        for (Map.Entry<String, long[]> entry : topValues.entrySet()) {
+            if (entry.getValue()[0] < minCount) {
+                minCount = entry.getValue()[0];
+                minKey = entry.getKey();
+            }
+        }
+        topValues.remove(minKey);
+        topValues.put(key, new long[] { minCount + count, minCount + error });
+    }
+
+    /**
+     * Folds another field's sketch into this one (e.g., per-shard or per-batch samples)
+     */
+    public void merge(FieldSketch other) {
+        distinct.merge(other.distinct);
+        valueCount += other.valueCount;
+        if (other.min <= other.max) {
+            addRange(other.min);
+            addRange(other.max);
+        }
+
+        if (other.lengthCounts.length > lengthCounts.length) {
+            lengthCounts = Arrays.copyOf(lengthCounts, other.lengthCounts.length);
+        }
+        for (int i = 0; i < other.lengthCounts.length; i++) {
+            lengthCounts[i] += other.lengthCounts[i];
+        }
+        stringCount += other.stringCount;
+        maxLength = Math.max(maxLength, other.maxLength);
+
+        for (Map.Entry<String, long[]> entry : other.topValues.entrySet()) {
+            addTopValue(entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+        }
+    }
+
+    public long getDistinctCount() {
+        // The estimate can exceed the number of values seen on tiny samples
+        return Math.min(distinct.estimate(), valueCount);
+    }
+
+    public long getValueCount() {
+        return valueCount;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * String length at the given percentile (0-100), or -1 if no strings were seen
+     */
+    public int getLengthPercentile(double percentile) {
+        if (stringCount == 0) {
+            return -1;
+        }
+        long rank = (long) Math.ceil(percentile / 100.0 * stringCount);
+        long seen = 0;
+        for (int length = 0; length < lengthCounts.length; length++) {
+            seen += lengthCounts[length];
+            if (seen >= rank && lengthCounts[length] > 0) {
+                return length == MAX_TRACKED_LENGTH ? maxLength : length;
+            }
+        }
+        return maxLength;
+    }
+
+    public ObjectNode toJson(ObjectMapper objectMapper) {
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("valueCount", valueCount);
+        json.put("distinctCount", getDistinctCount());
+
+        if (min <= max) {
+            json.put("min", min);
+            json.put("max", max);
+        }
+
+        if (stringCount > 0) {
+            ObjectNode lengths = objectMapper.createObjectNode();
+            lengths.put("p50", getLengthPercentile(50));
+            lengths.put("p95", getLengthPercentile(95));
+            lengths.put("p99", getLengthPercentile(99));
+            lengths.put("max", maxLength);
+            json.set("stringLength", lengths);
+        }
+
+        if (!topValues.isEmpty()) {
+            List<Map.Entry<String, long[]>> entries = new ArrayList<>(topValues.entrySet());
+            entries.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+            ArrayNode top = objectMapper.createArrayNode();
+            for (Map.Entry<String, long[]> entry : entries.subList(0, Math.min(TOP_K, entries.size()))) {
+                ObjectNode item = objectMapper.createObjectNode();
+                item.put("value", entry.getKey());
+                item.put("count", entry.getValue()[0]);
+                item.put("error", entry.getValue()[1]);
+                top.add(item);
+            }
+            json.set("topValues", top);
+        }
+
+        return json;
+    }
+}
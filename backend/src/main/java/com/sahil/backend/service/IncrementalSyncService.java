@@ -0,0 +1,127 @@
+package com.sahil.backend.service;
+
+import com.sahil.backend.model.MigrationRun;
+import com.sahil.backend.repository.MigrationRunRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Schedules periodic incremental syncs per migration
+ * A tick is skipped while the migration's previous sync run is still in progress; the
+ * coordinator additionally skips any table that another pass is still syncing
+ */
+@Service
+public class IncrementalSyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalSyncService.class);
+
+    @Autowired
+    private MigrationCoordinatorService migrationCoordinatorService;
+
+    @Autowired
+    private MigrationRunRepository migrationRunRepository;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "incremental-sync-scheduler");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Map<UUID, ScheduledFuture<?>> schedules = new ConcurrentHashMap<>();
+    private final Map<UUID, UUID> lastRuns = new ConcurrentHashMap<>();
+    private final Map<UUID, AtomicBoolean> starting = new ConcurrentHashMap<>(); // Held while a pass is being started
+
+    /**
+     * Starts a sync pass now, unless one is already running for the migration;
+     * throws IllegalStateException while another caller is starting one
+     */
+    public MigrationRun syncNow(UUID migrationId) {
+        AtomicBoolean guard = starting.computeIfAbsent(migrationId, id -> new AtomicBoolean());
+        if (!guard.compareAndSet(false, true)) {
+            throw new IllegalStateException("An incremental sync for migration " + migrationId + " is already starting");
+        }
+        try {
+            MigrationRun running = findRunningSync(migrationId);
+            if (running != null) {
+                return running;
+            }
+            MigrationRun run = migrationCoordinatorService.executeIncrementalSync(migrationId);
+            lastRuns.put(migrationId, run.getId());
+            return run;
+        } finally {
+            guard.set(false);
+        }
+    }
+
+    /**
+     * Replaces the migration's schedule with one firing every intervalSeconds
+     */
+    public void schedule(UUID migrationId, long intervalSeconds) {
+        if (intervalSeconds <= 0) {
+            throw new IllegalArgumentException("intervalSeconds must be positive");
+        }
+        ScheduledFuture<?> future = scheduler.scheduleWithFixedDelay(
+                () -> tick(migrationId), 0, intervalSeconds, TimeUnit.SECONDS);
+        ScheduledFuture<?> previous = schedules.put(migrationId, future);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        logger.info("Incremental sync scheduled for migration {} every {}s", migrationId, intervalSeconds);
+    }
+
+    public boolean unschedule(UUID migrationId) {
+        ScheduledFuture<?> future = schedules.remove(migrationId);
+        if (future == null) {
+            return false;
+        }
+        future.cancel(false);
+        logger.info("Incremental sync schedule removed for migration {}", migrationId);
+        return true;
+    }
+
+    public boolean isScheduled(UUID migrationId) {
+        return schedules.containsKey(migrationId);
+    }
+
+    private void tick(UUID migrationId) {
+        try {
+            if (findRunningSync(migrationId) != null) {
+                logger.info("Skipping incremental sync for migration {}: previous pass still running", migrationId);
+                return;
+            }
+            syncNow(migrationId);
+        } catch (IllegalStateException e) {
+            logger.info("Skipping incremental sync for migration {}: {}", migrationId, e.getMessage());
+        } catch (Exception e) {
+            // Keep the schedule alive; the next tick retries from the stored watermarks
+            logger.error("Scheduled incremental sync failed for migration {}", migrationId, e);
+        }
+    }
+
+    private MigrationRun findRunningSync(UUID migrationId) {
+        UUID runId = lastRuns.get(migrationId);
+        if (runId == null) {
+            return null;
+        }
+        return migrationRunRepository.findById(runId)
+                .filter(run -> "RUNNING".equals(run.getStatus()))
+                .orElse(null);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
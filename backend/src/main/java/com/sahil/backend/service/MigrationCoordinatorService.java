@@ -6,14 +6,23 @@ import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Indexes;
 import com.sahil.backend.config.MigrationConfig;
 import com.sahil.backend.model.*;
 import com.sahil.backend.repository.MigrationPlanRepository;
 import com.sahil.backend.repository.MigrationProgressRepository;
 import com.sahil.backend.repository.MigrationRepository;
 import com.sahil.backend.repository.MigrationRunRepository;
+import com.sahil.backend.repository.SyncWatermarkRepository;
+import com.sahil.backend.service.worker.BatchLedger;
 import com.sahil.backend.service.worker.DocumentConsumer;
 import com.sahil.backend.service.worker.DocumentProducer;
+import com.sahil.backend.service.worker.JoinTableWriter;
+import com.sahil.backend.service.worker.ReactiveDocumentProducer;
+import com.sahil.backend.service.worker.SourceRateLimiter;
+import com.sahil.backend.service.worker.TargetWriteGovernor;
+import com.sahil.backend.service.worker.WatermarkCursor;
+import jakarta.annotation.PreDestroy;
 import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,8 +32,10 @@ import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.*;
@@ -56,12 +67,46 @@ public class MigrationCoordinatorService {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private SourceReadGovernorService sourceReadGovernorService;
+
+    @Autowired
+    private SyncWatermarkRepository syncWatermarkRepository;
+
+    @Autowired
+    private MongoConnectionService mongoConnectionService;
+
     // Thread pools for producers and consumers
+    private ExecutorService collectionPool;
     private ExecutorService producerPool;
     private ExecutorService consumerPool;
 
+    // Retries reactive producers' queue offers and rate limiter delays (null unless reactive)
+    private ScheduledExecutorService producerScheduler;
+
+    // Tables with an incremental pass in progress ("migrationId:targetTable")
+    private final Set<String> syncingTables = ConcurrentHashMap.newKeySet();
+
+    // Cap concurrent JDBC writes and cursor reads when workers run on virtual threads (null otherwise)
+    private Semaphore writePermits;
+    private Semaphore readPermits;
+
     public MigrationRun executeMigration(UUID migrationId) {
         logger.info("Starting migration execution for migrationId: {}", migrationId);
+        return startRun(migrationId, false);
+    }
+
+    /**
+     * Copies only documents changed since the last successful pass of each table.
+     * Reads are driven by the table's watermark field and written as upserts, so
+     * a pass can be repeated safely; the watermark only advances on an error-free pass.
+     */
+    public MigrationRun executeIncrementalSync(UUID migrationId) {
+        logger.info("Starting incremental sync for migrationId: {}", migrationId);
+        return startRun(migrationId, true);
+    }
+
+    private MigrationRun startRun(UUID migrationId, boolean incremental) {
 
         // 1. Load migration and plan
         Migration migration = migrationRepository.findById(migrationId)
@@ -81,82 +126,181 @@ public class MigrationCoordinatorService {
         // 3. Initialize thread pools
         initializeThreadPools();
 
-        // 4. Connect to databases
-        MongoDatabase mongoDb = connectToMongoDB(migration);
-        JdbcTemplate targetDb = connectToPostgreSQL(migration);
+        // 4. Connect to databases; anything opened before a failure here is released again
+        MongoClient mongoClient = null;
+        com.mongodb.reactivestreams.client.MongoClient reactiveClient = null;
+        TargetWriteGovernor writeGovernor = null;
+        MongoDatabase mongoDb;
+        com.mongodb.reactivestreams.client.MongoDatabase reactiveMongoDb;
+        JdbcTemplate targetDb;
+        SourceRateLimiter rateLimiter;
+        BatchLedger batchLedger;
+        try {
+            mongoClient = connectToMongoDB(migration);
+            mongoDb = mongoClient.getDatabase(migration.getSourceDatabase());
+            reactiveClient = config.isUseReactiveProducer() ? connectToReactiveMongoDB(migration) : null;
+            reactiveMongoDb = reactiveClient != null
+                    ? reactiveClient.getDatabase(migration.getSourceDatabase())
+                    : null;
+            targetDb = connectToPostgreSQL(migration);
+
+            // Producers reading from the same source cluster share one rate limiter
+            rateLimiter = sourceReadGovernorService.registerRun(
+                    savedRun.getId(),
+                    migration.getSourceHost() + ":" + migration.getSourcePort(),
+                    mongoClient.getDatabase("admin"));
+
+            // Slow down writers while the target's streaming replicas lag behind
+            writeGovernor = createWriteGovernor(targetDb, savedRun);
+
+            // Ledger of committed batches, written in the same transaction as the rows
+            batchLedger = createBatchLedger(targetDb, migrationId, incremental ? "SYNC" : "FULL", savedRun.getId());
+        } catch (RuntimeException e) {
+            logger.error("Failed to start run for migrationId: {}", migrationId, e);
+            stopWriteGovernor(writeGovernor);
+            sourceReadGovernorService.unregisterRun(savedRun.getId());
+            closeSourceClients(mongoClient, reactiveClient);
+            failRun(savedRun);
+            throw e;
+        }
 
         // 5. Process each collection
         JsonNode tableMappings = plan.getPlanJson().get("tableMappings");
-        List<CompletableFuture<Void>> collectionFutures = new ArrayList<>();
+        JsonNode joinTables = plan.getPlanJson().get("joinTables"); // Absent in older plans
+        List<CompletableFuture<MigrationMetrics>> collectionFutures = new ArrayList<>();
 
         if (tableMappings != null && tableMappings.isArray()) {
             for (JsonNode mapping : tableMappings) {
-                CompletableFuture<Void> future = processCollectionAsync(
-                        mapping, mongoDb, targetDb, savedRun.getId());
+                CompletableFuture<MigrationMetrics> future = processCollectionAsync(
+                        mapping, joinTables, mongoDb, reactiveMongoDb, targetDb, savedRun.getId(), rateLimiter,
+                        writeGovernor, batchLedger, incremental ? migrationId : null);
                 collectionFutures.add(future);
             }
         }
 
         // 6. Monitor completion asynchronously
+        TargetWriteGovernor runWriteGovernor = writeGovernor;
+        MongoClient runMongoClient = mongoClient;
+        com.mongodb.reactivestreams.client.MongoClient runReactiveClient = reactiveClient;
         CompletableFuture.allOf(collectionFutures.toArray(new CompletableFuture[0]))
                 .thenAccept(v -> {
-                    finalizeRun(savedRun);
-                    shutdownThreadPools();
-                    logger.info("Migration completed for migrationId: {}", migrationId);
+                    stopWriteGovernor(runWriteGovernor);
+                    addJoinTableForeignKeys(targetDb, tableMappings, joinTables);
+                    long failures = countFailures(collectionFutures);
+                    finalizeRun(savedRun, failures);
+                    if (failures == 0) {
+                        clearBatchLedger(batchLedger);
+                    } else if (batchLedger != null) {
+                        logger.warn("Keeping the batch ledger of migration {}: {} batches failed, "
+                                + "the next run resumes past the committed ones", migrationId, failures);
+                    }
+                    sourceReadGovernorService.unregisterRun(savedRun.getId());
+                    logger.info("{} {} for migrationId: {}",
+                            incremental ? "Incremental sync" : "Migration",
+                            failures == 0 ? "completed" : "completed with " + failures + " errors", migrationId);
                 })
                 .exceptionally(ex -> {
                     logger.error("Migration failed for migrationId: {}", migrationId, ex);
-                    savedRun.setStatus("FAILED");
-                    savedRun.setEndedAt(java.time.LocalDateTime.now());
-                    migrationRunRepository.save(savedRun);
-                    shutdownThreadPools();
+                    stopWriteGovernor(runWriteGovernor);
+                    failRun(savedRun);
+                    sourceReadGovernorService.unregisterRun(savedRun.getId());
                     return null;
-                });
+                })
+                .whenComplete((v, ex) -> closeSourceClients(runMongoClient, runReactiveClient));
 
         return savedRun;
     }
 
-    private CompletableFuture<Void> processCollectionAsync(
+    /**
+     * Returns the table's metrics once it has loaded, or null for a sync pass skipped
+     * because another pass of the table is running
+     */
+    private CompletableFuture<MigrationMetrics> processCollectionAsync(
             JsonNode mapping,
+            JsonNode joinTables,
             MongoDatabase mongoDb,
+            com.mongodb.reactivestreams.client.MongoDatabase reactiveMongoDb,
             JdbcTemplate targetDb,
-            UUID runId) {
+            UUID runId,
+            SourceRateLimiter rateLimiter,
+            TargetWriteGovernor writeGovernor,
+            BatchLedger batchLedger,
+            UUID syncMigrationId) {
+
+        // Overlapping passes must not read from the same watermark and write the same table
+        String syncKey = syncMigrationId != null ? syncMigrationId + ":" + mapping.get("targetTable").asText() : null;
+        if (syncKey != null && !syncingTables.add(syncKey)) {
+            logger.warn("Skipping {}: an incremental pass for it is already running", syncKey);
+            return CompletableFuture.completedFuture(null);
+        }
 
-        return CompletableFuture.runAsync(() -> {
+        CompletableFuture<MigrationMetrics> future = CompletableFuture.supplyAsync(() -> {
             String sourceCollection = mapping.get("sourceCollection").asText();
             String targetTable = mapping.get("targetTable").asText();
             JsonNode columns = mapping.get("columns");
+            String writeMode = mapping.has("writeMode") ? mapping.get("writeMode").asText() : "INSERT";
+
+            // Incremental passes re-read the boundary value, so rows must be upserted
+            SyncWatermark syncWatermark = null;
+            WatermarkCursor watermark = null;
+            if (syncMigrationId != null) {
+                syncWatermark = loadWatermark(syncMigrationId, mapping);
+                watermark = new WatermarkCursor(syncWatermark.getWatermarkField(),
+                        decodeWatermarkValue(syncWatermark.getLastValueJson()));
+                writeMode = "UPSERT";
+            }
 
-            logger.info("Processing collection: {} -> {}", sourceCollection, targetTable);
+            logger.info("Processing collection: {} -> {} (write mode: {})", sourceCollection, targetTable, writeMode);
 
             try {
+                if (watermark != null) {
+                    ensureWatermarkIndex(mongoDb.getCollection(sourceCollection), watermark.getField());
+                }
+
                 // Create target table
                 createTargetTable(targetDb, targetTable, columns);
 
+                // Join tables of this collection's reference arrays, filled from the same batches
+                List<JoinTableWriter> joinTableWriters = createJoinTableWriters(
+                        targetDb, joinTables, sourceCollection, writeMode);
+
                 // Create progress record
                 MigrationProgress progress = new MigrationProgress(
                         runId, targetTable, 0L, 0L, "RUNNING");
                 MigrationProgress savedProgress = migrationProgressRepository.save(progress);
 
-                // Get total document count
+                // Get total document count (metadata unless exact counts are configured)
                 MongoCollection<Document> collection = mongoDb.getCollection(sourceCollection);
-                long totalDocuments = collection.countDocuments();
+                CollectionStats stats = mongoConnectionService.readCollectionStats(
+                        mongoDb, sourceCollection, config.isExactCounts());
+                long totalDocuments = watermark != null
+                        ? collection.countDocuments(watermark.filter()) // Index range count on the watermark
+                        : stats.getDocumentCount();
                 savedProgress.setRowsTotal(totalDocuments);
                 migrationProgressRepository.save(savedProgress);
 
-                logger.info("Collection {} has {} documents", sourceCollection, totalDocuments);
+                int batchSize = batchLedger != null
+                        ? batchLedger.batchSizeFor(targetTable, batchSizeFor(stats))
+                        : batchSizeFor(stats);
+                logger.info("Collection {} has {} documents ({}), batch size {}",
+                        sourceCollection, totalDocuments, stats, batchSize);
 
                 // Setup queue and metrics
                 BlockingQueue<DocumentBatch> queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
                 MigrationMetrics metrics = new MigrationMetrics(targetTable);
+                if (writeGovernor != null) {
+                    writeGovernor.registerMetrics(metrics);
+                }
 
                 // Start producers
                 List<Future<?>> producers = startProducers(
-                        collection, queue, metrics, sourceCollection, targetTable);
+                        collection, reactiveMongoDb, queue, metrics, sourceCollection, targetTable, rateLimiter,
+                        watermark, batchSize);
 
                 // Start consumers
                 List<Future<?>> consumers = startConsumers(
-                        queue, targetDb, columns, targetTable, metrics, savedProgress.getId());
+                        queue, targetDb, columns, targetTable, metrics, savedProgress.getId(), writeGovernor,
+                        batchLedger, writeMode, joinTableWriters);
 
                 // Wait for all producers to finish
                 waitForCompletion(producers, "Producers");
@@ -169,30 +313,64 @@ public class MigrationCoordinatorService {
                 // Wait for all consumers to finish
                 waitForCompletion(consumers, "Consumers");
 
-                // Update final status
-                savedProgress.setStatus("COMPLETED");
+                // Update final status; batches given up on after retries only show in the metrics
+                savedProgress.setStatus(metrics.getErrors() == 0 ? "COMPLETED" : "COMPLETED_WITH_ERRORS");
                 savedProgress.setRowsProcessed(metrics.getDocumentsConsumed());
                 migrationProgressRepository.save(savedProgress);
 
+                if (syncWatermark != null) {
+                    advanceWatermark(syncWatermark, watermark, metrics, runId);
+                }
+
                 logger.info("Completed collection: {} -> {} ({})",
                         sourceCollection, targetTable, metrics);
+                for (JoinTableWriter joinTableWriter : joinTableWriters) {
+                    logger.info("Copied {} rows into join table {}",
+                            joinTableWriter.getRowsWritten(), joinTableWriter.getTableName());
+                }
+                return metrics;
 
             } catch (Exception e) {
                 logger.error("Failed to process collection: {} -> {}", sourceCollection, targetTable, e);
                 throw new RuntimeException("Collection processing failed", e);
             }
-        });
+        }, collectionPool);
+
+        return syncKey == null ? future : future.whenComplete((v, ex) -> syncingTables.remove(syncKey));
     }
 
     private List<Future<?>> startProducers(
             MongoCollection<Document> collection,
+            com.mongodb.reactivestreams.client.MongoDatabase reactiveMongoDb,
             BlockingQueue<DocumentBatch> queue,
             MigrationMetrics metrics,
             String collectionName,
-            String targetTableName) {
+            String targetTableName,
+            SourceRateLimiter rateLimiter,
+            WatermarkCursor watermark,
+            int batchSize) {
 
         List<Future<?>> producers = new ArrayList<>();
 
+        if (reactiveMongoDb != null) {
+            // Demand-driven cursor: reads and queue offers happen on the driver's
+            // callbacks, no producer thread is held per collection
+            ReactiveDocumentProducer producer = new ReactiveDocumentProducer(
+                    reactiveMongoDb.getCollection(collectionName),
+                    queue,
+                    metrics,
+                    batchSize,
+                    config.getMongoFetchSize(),
+                    collectionName,
+                    targetTableName,
+                    rateLimiter,
+                    watermark);
+            producers.add(producer.start(producerScheduler));
+
+            logger.info("Started 1 reactive producer for collection: {}", collectionName);
+            return producers;
+        }
+
         // Use only 1 producer per collection since MongoDB cursors can't be shared
         // Multiple producers would require data partitioning (skip/limit) which adds
         // complexity
@@ -200,10 +378,13 @@ public class MigrationCoordinatorService {
                 collection,
                 queue,
                 metrics,
-                config.getBatchSize(),
+                batchSize,
                 config.getMongoFetchSize(),
                 collectionName,
-                targetTableName);
+                targetTableName,
+                rateLimiter,
+                watermark,
+                readPermits);
         producers.add(producerPool.submit(producer));
 
         logger.info("Started 1 producer for collection: {}", collectionName);
@@ -216,7 +397,11 @@ public class MigrationCoordinatorService {
             JsonNode columns,
             String targetTable,
             MigrationMetrics metrics,
-            UUID progressId) {
+            UUID progressId,
+            TargetWriteGovernor writeGovernor,
+            BatchLedger batchLedger,
+            String writeMode,
+            List<JoinTableWriter> joinTableWriters) {
 
         List<Future<?>> consumers = new ArrayList<>();
 
@@ -232,8 +417,12 @@ public class MigrationCoordinatorService {
                     config.getRetryDelayMs(),
                     migrationProgressRepository,
                     progressId,
-                    i + 1 // Consumer ID
-            );
+                    i + 1, // Consumer ID
+                    writePermits,
+                    writeGovernor,
+                    batchLedger,
+                    writeMode,
+                    joinTableWriters);
             consumers.add(consumerPool.submit(consumer));
         }
 
@@ -335,7 +524,102 @@ public class MigrationCoordinatorService {
         }
     }
 
-    private MongoDatabase connectToMongoDB(Migration migration) {
+    private List<JoinTableWriter> createJoinTableWriters(JdbcTemplate targetDb, JsonNode joinTables,
+            String sourceCollection, String writeMode) {
+        List<JoinTableWriter> writers = new ArrayList<>();
+        if (joinTables == null || !joinTables.isArray()) {
+            return writers;
+        }
+
+        for (JsonNode joinTable : joinTables) {
+            if (!sourceCollection.equals(joinTable.get("sourceCollection").asText())) {
+                continue;
+            }
+            JoinTableWriter writer = new JoinTableWriter(targetDb, joinTable, writeMode);
+            try {
+                writer.createTable();
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to create join table: " + writer.getTableName()
+                        + " - " + e.getMessage(), e);
+            }
+            writers.add(writer);
+        }
+        return writers;
+    }
+
+    /**
+     * Adds the join tables' foreign keys once both parent tables are loaded. They are created
+     * NOT VALID (checked for new rows only) and then validated; references to documents that
+     * do not exist in the source leave a constraint unvalidated with a warning instead of failing the run.
+     */
+    private void addJoinTableForeignKeys(JdbcTemplate targetDb, JsonNode tableMappings, JsonNode joinTables) {
+        if (joinTables == null || !joinTables.isArray() || tableMappings == null) {
+            return;
+        }
+
+        Map<String, String> tablesByCollection = new HashMap<>();
+        for (JsonNode mapping : tableMappings) {
+            tablesByCollection.put(mapping.get("sourceCollection").asText(), mapping.get("targetTable").asText());
+        }
+
+        for (JsonNode joinTable : joinTables) {
+            String tableName = joinTable.get("tableName").asText();
+            if (!tablesByCollection.containsKey(joinTable.get("sourceCollection").asText())) {
+                continue; // Join table was not loaded in this run
+            }
+            for (String side : new String[] { "source", "target" }) {
+                String parentTable = tablesByCollection.get(joinTable.get(side + "Collection").asText());
+                if (parentTable == null) {
+                    logger.warn("Skipping foreign key of {}: {} is not part of this run",
+                            tableName, joinTable.get(side + "Collection").asText());
+                    continue;
+                }
+                String column = joinTable.get(side + "Column").asText();
+                String constraint = String.format("fk_%s_%s", tableName, column);
+                try {
+                    targetDb.execute("ALTER TABLE " + tableName + " DROP CONSTRAINT IF EXISTS " + constraint);
+                    targetDb.execute("ALTER TABLE " + tableName + " ADD CONSTRAINT " + constraint
+                            + " FOREIGN KEY (" + column + ") REFERENCES " + parentTable + " (id)"
+                            + " ON DELETE CASCADE NOT VALID");
+                    targetDb.execute("ALTER TABLE " + tableName + " VALIDATE CONSTRAINT " + constraint);
+                } catch (Exception e) {
+                    logger.warn("Foreign key {} left unvalidated: {}", constraint, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private MongoClient connectToMongoDB(Migration migration) {
+        MongoClient mongoClient = MongoClients.create(buildMongoConnectionString(migration));
+        logger.info("Connected to MongoDB: {}", migration.getSourceHost());
+        return mongoClient;
+    }
+
+    private com.mongodb.reactivestreams.client.MongoClient connectToReactiveMongoDB(Migration migration) {
+        com.mongodb.reactivestreams.client.MongoClient mongoClient = com.mongodb.reactivestreams.client.MongoClients
+                .create(buildMongoConnectionString(migration));
+        logger.info("Connected to MongoDB (reactive): {}", migration.getSourceHost());
+        return mongoClient;
+    }
+
+    /**
+     * Clients are opened per run, so they are closed once every collection has finished
+     */
+    private void closeSourceClients(MongoClient mongoClient,
+            com.mongodb.reactivestreams.client.MongoClient reactiveClient) {
+        try {
+            if (mongoClient != null) {
+                mongoClient.close();
+            }
+            if (reactiveClient != null) {
+                reactiveClient.close();
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to close MongoDB clients: {}", e.getMessage());
+        }
+    }
+
+    private String buildMongoConnectionString(Migration migration) {
         String connectionString;
 
         if (migration.getSourceUsername() != null && !migration.getSourceUsername().isEmpty()) {
@@ -362,9 +646,7 @@ public class MigrationCoordinatorService {
                     migration.getSourcePort());
         }
 
-        MongoClient mongoClient = MongoClients.create(connectionString);
-        logger.info("Connected to MongoDB: {}", migration.getSourceHost());
-        return mongoClient.getDatabase(migration.getSourceDatabase());
+        return connectionString;
     }
 
     private JdbcTemplate connectToPostgreSQL(Migration migration) {
@@ -400,27 +682,217 @@ public class MigrationCoordinatorService {
         }
     }
 
-    private void finalizeRun(MigrationRun run) {
+    private TargetWriteGovernor createWriteGovernor(JdbcTemplate targetDb, MigrationRun run) {
+        if (!config.isTargetLagThrottle()) {
+            return null;
+        }
+
+        TargetWriteGovernor governor = new TargetWriteGovernor(
+                targetDb,
+                config.getConsumerThreads(),
+                config.getTargetMaxReplicationLagMs(),
+                config.getTargetLagPollIntervalMs(),
+                lagMs -> {
+                    run.setTargetReplicationLagMs(lagMs);
+                    migrationRunRepository.save(run);
+                });
+        governor.start();
+        return governor;
+    }
+
+    private BatchLedger createBatchLedger(JdbcTemplate targetDb, UUID migrationId, String runType, UUID runId) {
+        if (!config.isUseBatchLedger()) {
+            return null;
+        }
+
+        BatchLedger ledger = new BatchLedger(targetDb, migrationId, runType, runId);
+        try {
+            ledger.createLedgerTable();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to create batch ledger table: " + e.getMessage(), e);
+        }
+        return ledger;
+    }
+
+    /**
+     * Entries only matter to a run resuming one that lost batches
+     */
+    private void clearBatchLedger(BatchLedger ledger) {
+        if (ledger == null) {
+            return;
+        }
+        try {
+            ledger.clear();
+        } catch (Exception e) {
+            logger.warn("Failed to clear batch ledger: {}", e.getMessage());
+        }
+    }
+
+    private void stopWriteGovernor(TargetWriteGovernor governor) {
+        if (governor != null) {
+            governor.stop();
+        }
+    }
+
+    /**
+     * Documents per batch: sized to batchTargetBytes from the collection's average
+     * document size when configured, never above the configured batch size
+     */
+    private int batchSizeFor(CollectionStats stats) {
+        int maxBatchSize = config.getBatchSize();
+        if (config.getBatchTargetBytes() <= 0 || stats.getAvgObjSizeBytes() <= 0) {
+            return maxBatchSize;
+        }
+        long sized = config.getBatchTargetBytes() / stats.getAvgObjSizeBytes();
+        return (int) Math.max(1, Math.min(maxBatchSize, sized));
+    }
+
+    private SyncWatermark loadWatermark(UUID migrationId, JsonNode mapping) {
+        String sourceCollection = mapping.get("sourceCollection").asText();
+        String targetTable = mapping.get("targetTable").asText();
+        String field = mapping.hasNonNull("watermarkField") ? mapping.get("watermarkField").asText() : "_id";
+
+        SyncWatermark syncWatermark = syncWatermarkRepository
+                .findByMigrationIdAndTargetTable(migrationId, targetTable)
+                .orElseGet(() -> new SyncWatermark(migrationId, sourceCollection, targetTable, field));
+
+        // A changed watermark field invalidates the stored position
+        if (!field.equals(syncWatermark.getWatermarkField())) {
+            logger.info("Watermark field for {} changed from {} to {}, resyncing from the start",
+                    targetTable, syncWatermark.getWatermarkField(), field);
+            syncWatermark.setWatermarkField(field);
+            syncWatermark.setLastValueJson(null);
+        }
+        return syncWatermark;
+    }
+
+    /**
+     * Incremental passes filter and sort on the watermark field; without an index leading
+     * with it every pass would scan and sort the whole collection
+     */
+    private void ensureWatermarkIndex(MongoCollection<Document> collection, String field) {
+        if ("_id".equals(field)) {
+            return;
+        }
+        for (Document index : collection.listIndexes()) {
+            Document key = index.get("key", Document.class);
+            if (key != null && !key.isEmpty() && field.equals(key.keySet().iterator().next())
+                    && key.get(field) instanceof Number) { // Ascending or descending, not hashed/text
+                return;
+            }
+        }
+
+        String collectionName = collection.getNamespace().getCollectionName();
+        if (!config.isCreateWatermarkIndex()) {
+            throw new IllegalStateException("No index on watermark field " + field + " of " + collectionName
+                    + "; create one or set migration.create-watermark-index=true");
+        }
+        logger.info("Creating index on watermark field {} of {}", field, collectionName);
+        collection.createIndex(Indexes.ascending(field));
+    }
+
+    private void advanceWatermark(SyncWatermark syncWatermark, WatermarkCursor watermark,
+            MigrationMetrics metrics, UUID runId) {
+        if (metrics.getErrors() > 0) {
+            logger.warn("Keeping watermark for {} at its previous value: pass had {} errors",
+                    syncWatermark.getTargetTable(), metrics.getErrors());
+            return;
+        }
+
+        Object highWatermark = watermark.getHighWatermark();
+        if (highWatermark != null) {
+            syncWatermark.setLastValueJson(new Document("v", highWatermark).toJson());
+        }
+        syncWatermark.setLastRunId(runId);
+        syncWatermark.setLastSyncedAt(java.time.LocalDateTime.now());
+        syncWatermarkRepository.save(syncWatermark);
+    }
+
+    /**
+     * Watermark values are stored as Extended JSON so dates and ObjectIds keep their BSON type
+     */
+    private Object decodeWatermarkValue(String lastValueJson) {
+        if (lastValueJson == null) {
+            return null;
+        }
+        return Document.parse(lastValueJson).get("v");
+    }
+
+    /**
+     * Errors of all tables (batches given up on after retries, failed producers)
+     */
+    private long countFailures(List<CompletableFuture<MigrationMetrics>> collectionFutures) {
+        long failures = 0;
+        for (CompletableFuture<MigrationMetrics> future : collectionFutures) {
+            MigrationMetrics metrics = future.join();
+            if (metrics != null) {
+                failures += metrics.getErrors();
+            }
+        }
+        return failures;
+    }
+
+    private void finalizeRun(MigrationRun run, long failures) {
+        run.setEndedAt(java.time.LocalDateTime.now());
+        run.setStatus(failures == 0 ? "COMPLETED" : "COMPLETED_WITH_ERRORS");
+        migrationRunRepository.save(run);
+    }
+
+    private void failRun(MigrationRun run) {
+        run.setStatus("FAILED");
         run.setEndedAt(java.time.LocalDateTime.now());
-        run.setStatus("COMPLETED");
         migrationRunRepository.save(run);
     }
 
-    private void initializeThreadPools() {
+    private synchronized void initializeThreadPools() {
+        if (collectionPool == null || collectionPool.isShutdown()) {
+            collectionPool = newWorkerPool();
+        }
         if (producerPool == null || producerPool.isShutdown()) {
-            producerPool = Executors.newCachedThreadPool();
+            producerPool = newWorkerPool();
         }
         if (consumerPool == null || consumerPool.isShutdown()) {
-            consumerPool = Executors.newCachedThreadPool();
+            consumerPool = newWorkerPool();
+        }
+        if (config.isUseVirtualThreads() && writePermits == null) {
+            writePermits = new Semaphore(config.getPostgresPoolSize());
+        }
+        if (config.isUseVirtualThreads() && readPermits == null) {
+            readPermits = new Semaphore(config.getMongoPoolSize());
+        }
+        if (config.isUseReactiveProducer() && (producerScheduler == null || producerScheduler.isShutdown())) {
+            producerScheduler = Executors.newSingleThreadScheduledExecutor();
         }
     }
 
-    private void shutdownThreadPools() {
+    /**
+     * Creates a worker pool according to the configured execution mode.
+     * Workers spend most of their time blocked on MongoDB or JDBC I/O, so virtual
+     * threads let many more collections load concurrently than one platform thread each.
+     */
+    private ExecutorService newWorkerPool() {
+        if (config.isUseVirtualThreads()) {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+        return Executors.newCachedThreadPool();
+    }
+
+    /**
+     * Pools are shared by concurrent runs and scheduled syncs, so they live as long as the service
+     */
+    @PreDestroy
+    void shutdownThreadPools() {
+        if (collectionPool != null) {
+            collectionPool.shutdown();
+        }
         if (producerPool != null) {
             producerPool.shutdown();
         }
         if (consumerPool != null) {
             consumerPool.shutdown();
         }
+        if (producerScheduler != null) {
+            producerScheduler.shutdown();
+        }
     }
 }
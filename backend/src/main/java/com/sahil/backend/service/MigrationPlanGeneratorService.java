@@ -1,5 +1,6 @@
 package com.sahil.backend.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -9,7 +10,6 @@ import com.sahil.backend.model.MongoRelationship;
 import com.sahil.backend.model.MongoSchemaField;
 import com.sahil.backend.model.Schema;
 import com.sahil.backend.repository.MongoRelationshipRepository;
-import com.sahil.backend.repository.MongoSchemaFieldRepository;
 import com.sahil.backend.repository.MigrationPlanRepository;
 import com.sahil.backend.repository.MigrationRepository;
 import com.sahil.backend.repository.SchemaRepository;
@@ -23,7 +23,7 @@ import java.util.stream.Collectors;
 public class MigrationPlanGeneratorService {
 
     @Autowired
-    private MongoSchemaFieldRepository mongoSchemaFieldRepository;
+    private SchemaStore schemaStore;
 
     @Autowired
     private MongoRelationshipRepository mongoRelationshipRepository;
@@ -73,7 +73,7 @@ public class MigrationPlanGeneratorService {
      * Generates comprehensive migration plan
      */
     public ObjectNode generateMigrationPlan(UUID schemaId) {
-        List<MongoSchemaField> fields = mongoSchemaFieldRepository.findBySchemaId(schemaId);
+        List<MongoSchemaField> fields = schemaStore.getFields(schemaId);
         List<MongoRelationship> relationships = mongoRelationshipRepository.findBySchemaId(schemaId);
 
         ObjectNode plan = objectMapper.createObjectNode();
@@ -82,20 +82,24 @@ public class MigrationPlanGeneratorService {
         Map<String, List<MongoSchemaField>> fieldsByCollection = fields.stream()
                 .collect(Collectors.groupingBy(MongoSchemaField::getCollectionName));
 
-        // Generate table mappings
-        ArrayNode tableMappings = generateTableMappings(fieldsByCollection);
+        // Generate join tables for arrays of references
+        ArrayNode joinTables = generateJoinTables(relationships);
+        plan.set("joinTables", joinTables);
+
+        // Generate table mappings (array fields loaded into join tables get no column)
+        ArrayNode tableMappings = generateTableMappings(fieldsByCollection, joinTables);
         plan.set("tableMappings", tableMappings);
 
         // Generate foreign keys
-        ArrayNode foreignKeys = generateForeignKeys(relationships);
+        ArrayNode foreignKeys = generateForeignKeys(relationships, joinTables);
         plan.set("foreignKeys", foreignKeys);
 
         // Generate indexes
-        ArrayNode indexes = generateIndexSuggestions(relationships, fields);
+        ArrayNode indexes = generateIndexSuggestions(relationships, fields, joinTables);
         plan.set("indexes", indexes);
 
         // Generate migration steps
-        ArrayNode migrationSteps = generateMigrationSteps(fieldsByCollection, relationships);
+        ArrayNode migrationSteps = generateMigrationSteps(fieldsByCollection, relationships, joinTables);
         plan.set("migrationSteps", migrationSteps);
 
         return plan;
@@ -104,9 +108,15 @@ public class MigrationPlanGeneratorService {
     /**
      * Generates table mappings from collections
      */
-    private ArrayNode generateTableMappings(Map<String, List<MongoSchemaField>> fieldsByCollection) {
+    private ArrayNode generateTableMappings(Map<String, List<MongoSchemaField>> fieldsByCollection,
+            ArrayNode joinTables) {
         ArrayNode mappings = objectMapper.createArrayNode();
 
+        Set<String> joinTableFields = new HashSet<>();
+        for (JsonNode joinTable : joinTables) {
+            joinTableFields.add(joinTable.get("sourceCollection").asText() + "." + joinTable.get("sourceField").asText());
+        }
+
         for (Map.Entry<String, List<MongoSchemaField>> entry : fieldsByCollection.entrySet()) {
             String collectionName = entry.getKey();
             List<MongoSchemaField> fields = entry.getValue();
@@ -114,24 +124,66 @@ public class MigrationPlanGeneratorService {
             ObjectNode tableMapping = objectMapper.createObjectNode();
             tableMapping.put("sourceCollection", collectionName);
             tableMapping.put("targetTable", collectionName); // Use same name by default
+            tableMapping.put("writeMode", "INSERT"); // INSERT, or UPSERT for re-runs over existing rows
+            tableMapping.put("watermarkField", suggestWatermarkField(fields)); // Drives incremental syncs
 
             // Generate columns
             ArrayNode columns = objectMapper.createArrayNode();
             for (MongoSchemaField field : fields) {
+                if (joinTableFields.contains(collectionName + "." + field.getFieldPath())) {
+                    continue; // Array elements are loaded into a join table instead of a JSONB column
+                }
                 if (!field.getFieldPath().contains(".")) { // Only top-level fields
                     ObjectNode column = objectMapper.createObjectNode();
                     column.put("sourceField", field.getFieldName());
                     column.put("targetColumn", field.getFieldName());
-                    column.put("dataType", structuralAnalyzerService.suggestSqlType(field));
-                    column.put("nullable", !field.getIsRequired());
 
-                    if (field.getIsArray() ||
-                            (field.getDataTypes() != null && field.getDataTypes().toString().contains("object"))) {
+                    // Dominant-type selection when per-type counts are available
+                    StructuralAnalyzerService.TypeSelection selection = structuralAnalyzerService
+                            .selectColumnType(field);
+                    String dataType = selection != null
+                            ? selection.getSqlType()
+                            : structuralAnalyzerService.suggestSqlType(field);
+                    boolean hasOutliers = selection != null && selection.hasOutliers();
+
+                    column.put("dataType", dataType);
+                    column.put("nullable", !field.getIsRequired() || hasOutliers);
+
+                    // Informational: strings stay TEXT since longer values may not have been sampled
+                    Integer observedMaxLength = structuralAnalyzerService.observedMaxLength(field);
+                    if (observedMaxLength != null && "TEXT".equals(dataType)) {
+                        column.put("observedMaxLength", observedMaxLength);
+                    }
+
+                    boolean toJsonb = selection != null
+                            ? "JSONB".equals(dataType)
+                            : field.getIsArray() ||
+                                    (field.getDataTypes() != null && field.getDataTypes().toString().contains("object"));
+                    if (toJsonb) {
                         column.put("requiresTransformation", true);
                         column.put("transformationType", "TO_JSONB");
                     }
 
                     columns.add(column);
+
+                    // Values of non-dominant types are kept as JSONB next to the typed column
+                    if (hasOutliers) {
+                        ArrayNode acceptedTypes = objectMapper.createArrayNode();
+                        selection.getAcceptedTypes().forEach(acceptedTypes::add);
+                        String outlierColumnName = field.getFieldName() + "_outliers";
+
+                        column.set("acceptedTypes", acceptedTypes);
+                        column.put("outlierColumn", outlierColumnName);
+
+                        ObjectNode outlierColumn = objectMapper.createObjectNode();
+                        outlierColumn.put("sourceField", field.getFieldName());
+                        outlierColumn.put("targetColumn", outlierColumnName);
+                        outlierColumn.put("dataType", "JSONB");
+                        outlierColumn.put("nullable", true);
+                        outlierColumn.put("outlierOf", field.getFieldName());
+                        outlierColumn.set("acceptedTypes", acceptedTypes);
+                        columns.add(outlierColumn);
+                    }
                 }
             }
 
@@ -151,13 +203,120 @@ public class MigrationPlanGeneratorService {
         return mappings;
     }
 
+    /**
+     * Picks a modification timestamp found in every sampled document and holding only dates,
+     * falling back to _id (ObjectIds increase with insertion time, so inserts are still picked up).
+     * Incremental passes filter with $gte on the field, so documents lacking it or holding
+     * another type would never be synced.
+     */
+    private String suggestWatermarkField(List<MongoSchemaField> fields) {
+        List<String> candidates = Arrays.asList("updatedAt", "updated_at", "lastModified", "modifiedAt");
+        for (String candidate : candidates) {
+            for (MongoSchemaField field : fields) {
+                if (candidate.equals(field.getFieldPath()) &&
+                        field.getFrequency() != null && field.getFrequency() >= 1.0 &&
+                        field.getDataTypes() != null && field.getDataTypes().size() == 1 &&
+                        "date".equals(field.getDataTypes().get(0).asText())) {
+                    return candidate;
+                }
+            }
+        }
+        return "_id";
+    }
+
+    /**
+     * Generates join tables for many-to-many references (arrays of ObjectIds)
+     * Each array element becomes a (source id, target id) row, keyed on both columns and
+     * indexed on the target column, so joins in either direction use B-tree indexes
+     */
+    private ArrayNode generateJoinTables(List<MongoRelationship> relationships) {
+        ArrayNode joinTables = objectMapper.createArrayNode();
+        Set<String> tableNames = new HashSet<>();
+
+        for (MongoRelationship rel : relationships) {
+            if (!"MANY_TO_MANY".equals(rel.getRelationType()) || rel.getConfidence() < 0.7) {
+                continue;
+            }
+
+            // posts.tagIds -> posts_tags; a second array into the same target is named after its field
+            String tableName = rel.getSourceCollection() + "_" + rel.getTargetCollection();
+            if (!tableNames.add(tableName.toLowerCase(Locale.ROOT))) {
+                tableName = rel.getSourceCollection() + "_" + rel.getSourceField().toLowerCase(Locale.ROOT);
+                tableNames.add(tableName.toLowerCase(Locale.ROOT));
+            }
+
+            String sourceColumn = singularColumn(rel.getSourceCollection());
+            String targetColumn = singularColumn(rel.getTargetCollection());
+            if (sourceColumn.equals(targetColumn)) {
+                targetColumn = "related_" + targetColumn; // Self-reference (users.friendIds -> users)
+            }
+
+            ObjectNode joinTable = objectMapper.createObjectNode();
+            joinTable.put("tableName", tableName);
+            joinTable.put("sourceCollection", rel.getSourceCollection());
+            joinTable.put("sourceField", rel.getSourceField());
+            joinTable.put("targetCollection", rel.getTargetCollection());
+            joinTable.put("sourceColumn", sourceColumn); // Parent row's id
+            joinTable.put("targetColumn", targetColumn); // Referenced row's id, one row per array element
+            joinTable.put("dataType", "UUID"); // Same mapping from ObjectId as the tables' id columns
+            joinTable.put("loadMethod", "COPY"); // Streamed from the source table's producer pass
+            joinTable.put("confidence", rel.getConfidence());
+
+            ArrayNode primaryKey = objectMapper.createArrayNode();
+            primaryKey.add(sourceColumn);
+            primaryKey.add(targetColumn);
+            joinTable.set("primaryKey", primaryKey);
+
+            ArrayNode indexes = objectMapper.createArrayNode();
+            ObjectNode targetIndex = objectMapper.createObjectNode();
+            targetIndex.put("indexName", String.format("idx_%s_%s", tableName, targetColumn));
+            ArrayNode indexColumns = objectMapper.createArrayNode();
+            indexColumns.add(targetColumn);
+            targetIndex.set("columns", indexColumns);
+            targetIndex.put("type", "BTREE");
+            indexes.add(targetIndex);
+            joinTable.set("indexes", indexes);
+
+            joinTables.add(joinTable);
+        }
+
+        return joinTables;
+    }
+
+    private String singularColumn(String collectionName) {
+        return CollectionNameIndex.singular(collectionName.toLowerCase(Locale.ROOT)) + "_id";
+    }
+
     /**
      * Generates foreign key definitions
      */
-    private ArrayNode generateForeignKeys(List<MongoRelationship> relationships) {
+    private ArrayNode generateForeignKeys(List<MongoRelationship> relationships, ArrayNode joinTables) {
         ArrayNode foreignKeys = objectMapper.createArrayNode();
 
+        // Join table columns reference the ids of both sides
+        for (JsonNode joinTable : joinTables) {
+            String tableName = joinTable.get("tableName").asText();
+            for (String side : new String[] { "source", "target" }) {
+                String column = joinTable.get(side + "Column").asText();
+                ObjectNode fk = objectMapper.createObjectNode();
+                fk.put("constraintName", String.format("fk_%s_%s", tableName, column));
+                fk.put("sourceTable", tableName);
+                fk.put("sourceColumn", column);
+                fk.put("targetTable", joinTable.get(side + "Collection").asText());
+                fk.put("targetColumn", "id"); // Mapped from _id
+                fk.put("onDelete", "CASCADE");
+                fk.put("onUpdate", "CASCADE");
+                fk.put("confidence", joinTable.get("confidence").asDouble());
+                fk.put("applyAfterLoad", true); // Added NOT VALID once both tables are loaded, then validated
+
+                foreignKeys.add(fk);
+            }
+        }
+
         for (MongoRelationship rel : relationships) {
+            if ("MANY_TO_MANY".equals(rel.getRelationType())) {
+                continue; // Covered by join tables
+            }
             if (rel.getConfidence() >= 0.7) { // Only include high-confidence relationships
                 ObjectNode fk = objectMapper.createObjectNode();
                 fk.put("constraintName", String.format("fk_%s_%s",
@@ -180,13 +339,24 @@ public class MigrationPlanGeneratorService {
     /**
      * Generates index suggestions
      */
-    private ArrayNode generateIndexSuggestions(List<MongoRelationship> relationships, List<MongoSchemaField> fields) {
+    private ArrayNode generateIndexSuggestions(List<MongoRelationship> relationships, List<MongoSchemaField> fields,
+            ArrayNode joinTables) {
         ArrayNode indexes = objectMapper.createArrayNode();
         Set<String> indexedColumns = new HashSet<>();
 
+        // Join tables are indexed on their target column (the primary key covers the source column)
+        for (JsonNode joinTable : joinTables) {
+            for (JsonNode joinIndex : joinTable.get("indexes")) {
+                ObjectNode index = joinIndex.deepCopy();
+                index.put("tableName", joinTable.get("tableName").asText());
+                index.put("reason", "Join table lookup");
+                indexes.add(index);
+            }
+        }
+
         // Index all foreign key columns
         for (MongoRelationship rel : relationships) {
-            if (rel.getConfidence() >= 0.7) {
+            if (rel.getConfidence() >= 0.7 && !"MANY_TO_MANY".equals(rel.getRelationType())) {
                 String indexKey = rel.getSourceCollection() + "." + rel.getSourceField();
                 if (!indexedColumns.contains(indexKey)) {
                     ObjectNode index = objectMapper.createObjectNode();
@@ -215,7 +385,8 @@ public class MigrationPlanGeneratorService {
                 // Index fields that appear in most documents and aren't already indexed
                 if (field.getFrequency() > 0.9 &&
                         !field.getIsArray() &&
-                        !"_id".equals(field.getFieldName())) {
+                        !"_id".equals(field.getFieldName()) &&
+                        !structuralAnalyzerService.isLowCardinality(field)) {
 
                     String indexKey = field.getCollectionName() + "." + field.getFieldName();
                     if (!indexedColumns.contains(indexKey)) {
@@ -245,7 +416,8 @@ public class MigrationPlanGeneratorService {
      */
     private ArrayNode generateMigrationSteps(
             Map<String, List<MongoSchemaField>> fieldsByCollection,
-            List<MongoRelationship> relationships) {
+            List<MongoRelationship> relationships,
+            ArrayNode joinTables) {
 
         ArrayNode steps = objectMapper.createArrayNode();
 
@@ -258,6 +430,9 @@ public class MigrationPlanGeneratorService {
         for (String collection : fieldsByCollection.keySet()) {
             tables.add(collection);
         }
+        for (JsonNode joinTable : joinTables) {
+            tables.add(joinTable.get("tableName").asText());
+        }
         step1.set("tables", tables);
         steps.add(step1);
 
@@ -266,7 +441,7 @@ public class MigrationPlanGeneratorService {
         step2.put("step", 2);
         step2.put("description", "Migrate data from MongoDB to PostgreSQL");
         step2.put("action", "MIGRATE_DATA");
-        step2.put("note", "Transform nested objects and arrays to JSONB");
+        step2.put("note", "Transform nested objects and arrays to JSONB; reference arrays are copied into join tables");
         steps.add(step2);
 
         // Step 3: Create foreign keys
@@ -276,6 +451,7 @@ public class MigrationPlanGeneratorService {
             step3.put("description", "Create foreign key constraints");
             step3.put("action", "CREATE_FOREIGN_KEYS");
             step3.put("count", relationships.size());
+            step3.put("note", "Applied after all tables are loaded; join table keys are added NOT VALID, then validated");
             steps.add(step3);
         }
 
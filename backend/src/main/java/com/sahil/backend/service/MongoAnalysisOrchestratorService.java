@@ -2,21 +2,51 @@ package com.sahil.backend.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sahil.backend.config.MongoAnalysisConfig;
 import com.sahil.backend.model.*;
+import com.sahil.backend.repository.CollectionAnalysisCacheRepository;
+import com.sahil.backend.repository.MigrationRepository;
 import com.sahil.backend.repository.MongoRelationshipRepository;
-import com.sahil.backend.repository.MongoSchemaFieldRepository;
 import com.sahil.backend.repository.SchemaRepository;
+import com.sahil.backend.util.ConnectionHashUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 @Service
 public class MongoAnalysisOrchestratorService {
 
+    private static final Logger logger = LoggerFactory.getLogger(MongoAnalysisOrchestratorService.class);
+
+    @Autowired
+    private MongoAnalysisConfig analysisConfig;
+
     @Autowired
     private MongoConnectionService mongoConnectionService;
 
@@ -39,22 +69,66 @@ public class MongoAnalysisOrchestratorService {
     private SchemaRepository schemaRepository;
 
     @Autowired
-    private MongoSchemaFieldRepository mongoSchemaFieldRepository;
+    private SchemaStore schemaStore;
 
     @Autowired
     private MongoRelationshipRepository mongoRelationshipRepository;
 
+    @Autowired
+    private CollectionAnalysisCacheRepository collectionAnalysisCacheRepository;
+
+    @Autowired
+    private MigrationRepository migrationRepository;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    // Shared by all analyses; per-source queues keep one server from being flooded
+    private ExecutorService analysisPool;
+    private final Map<String, SourceQueue> sourceQueues = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void initAnalysisPool() {
+        analysisPool = Executors.newFixedThreadPool(analysisConfig.getAnalysisThreads());
+        if ("SERVER".equalsIgnoreCase(analysisConfig.getInferenceMode())) {
+            logger.warn("Server-side schema inference collects no value statistics: low-cardinality fields "
+                    + "are not recognized and still get index suggestions");
+        }
+    }
+
+    @PreDestroy
+    void shutdownAnalysisPool() {
+        analysisPool.shutdownNow();
+    }
+
     /**
      * Orchestrates the complete MongoDB analysis pipeline
      */
     public AnalysisResult runCompleteAnalysis(UUID migrationId, DbConnection dbConnection, int sampleSize) {
+        return runCompleteAnalysis(migrationId, dbConnection, sampleSize, 0);
+    }
+
+    /**
+     * Orchestrates the complete MongoDB analysis pipeline; with a deadline (ms, 0 = none)
+     * the collections analyzed so far are returned once it passes, the rest are marked
+     * pending and the analysis completes in the background
+     */
+    public AnalysisResult runCompleteAnalysis(UUID migrationId, DbConnection dbConnection, int sampleSize,
+            long deadlineMs) {
+        return runCompleteAnalysis(migrationId, dbConnection, sampleSize, deadlineMs, null);
+    }
+
+    /**
+     * Runs the pipeline reporting step-level progress to the job (null when run inline)
+     */
+    public AnalysisResult runCompleteAnalysis(UUID migrationId, DbConnection dbConnection, int sampleSize,
+            long deadlineMs, AnalysisJob job) {
+        long startedAt = System.currentTimeMillis();
         AnalysisResult result = new AnalysisResult();
 
         try {
             // Step 1: Test connection and get collections
+            reportStep(job, "CONNECTING");
             List<String> collections = mongoConnectionService.testConnection(dbConnection);
             result.setCollections(collections);
 
@@ -64,51 +138,508 @@ public class MongoAnalysisOrchestratorService {
             UUID schemaId = schema.getId();
             result.setSchemaId(schemaId);
 
-            // Step 2: Sample and analyze each collection
+            // Step 2: Sample and analyze collections concurrently
+            reportStep(job, "SAMPLING");
+            if (job != null) {
+                job.setCollectionsTotal(collections.size());
+            }
+            SourceQueue sourceQueue = sourceQueues.computeIfAbsent(sourceKey(dbConnection),
+                    key -> new SourceQueue(analysisConfig.getMaxConcurrentCollectionsPerSource()));
+
+            // Unchanged collections reuse the fields of their previous analysis
+            String connectionHash = ConnectionHashUtil.generateHash(
+                    dbConnection.getHost(), dbConnection.getPort(), dbConnection.getDatabaseName());
+            Map<String, String> fingerprints = analysisConfig.isReuseUnchangedCollections()
+                    ? mongoConnectionService.getChangeFingerprints(dbConnection, collections)
+                    : Collections.emptyMap();
+
+            List<CompletableFuture<CollectionTiming>> futures = new ArrayList<>();
+            AtomicBoolean abandoned = new AtomicBoolean(); // Set when the request fails with collections pending
             for (String collectionName : collections) {
+                String fingerprint = fingerprints.containsKey(collectionName)
+                        ? analysisFingerprint(fingerprints.get(collectionName), sampleSize)
+                        : null;
+                long queuedAt = System.currentTimeMillis();
+                CompletableFuture<CollectionTiming> future = CompletableFuture.supplyAsync(
+                        () -> fingerprint != null
+                                ? reuseCachedAnalysis(connectionHash, schemaId, collectionName, fingerprint)
+                                : null,
+                        analysisPool)
+                        .thenCompose(reused -> reused != null
+                                ? CompletableFuture.completedFuture(reused)
+                                : sourceQueue.submit(() -> {
+                                    if (abandoned.get()) {
+                                        throw new CancellationException("Analysis of schema " + schemaId
+                                                + " failed before " + collectionName + " was sampled");
+                                    }
+                                    return analyzeCollection(dbConnection, schemaId, collectionName, sampleSize,
+                                            queuedAt, connectionHash, fingerprint);
+                                }));
+                if (job != null) {
+                    future.thenRun(job::collectionFinished);
+                }
+                futures.add(future);
+            }
+
+            // Relationship and risk analysis need every collection's fields
+            CompletableFuture<Void> allCollections = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+            try {
+                if (deadlineMs > 0) {
+                    long remaining = Math.max(0, deadlineMs - (System.currentTimeMillis() - startedAt));
+                    allCollections.get(remaining, TimeUnit.MILLISECONDS);
+                } else {
+                    allCollections.join();
+                }
+            } catch (TimeoutException e) {
+                return partialResult(migrationId, dbConnection, schemaId, collections, futures, allCollections,
+                        abandoned, result, job);
+            } catch (CompletionException | ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+
+            completeAnalysis(migrationId, dbConnection, schemaId, collections, futures, result, job);
+
+            result.setSuccess(true);
+            result.setMessage("Analysis completed successfully");
+
+        } catch (Exception e) {
+            result.setSuccess(false);
+            result.setMessage("Analysis failed: " + e.getMessage());
+            result.setError(e.getMessage());
+        }
+
+        return result;
+    }
+
+    /**
+     * Saves the analyzed source's connection info on the migration
+     */
+    public void recordAnalyzedSource(UUID migrationId, DbConnection conn) {
+        Optional<Migration> migrationOpt = migrationRepository.findById(migrationId);
+        if (migrationOpt.isPresent()) {
+            Migration migration = migrationOpt.get();
+            String connectionHash = ConnectionHashUtil.generateHash(
+                    conn.getHost(),
+                    conn.getPort(),
+                    conn.getDatabaseName());
+            migration.setConnectionHash(connectionHash);
+            migration.setSourceHost(conn.getHost());
+            migration.setSourcePort(conn.getPort());
+            migration.setSourceDatabase(conn.getDatabaseName());
+            migration.setSourceUsername(conn.getUsername());
+            migration.setSourcePassword(conn.getPassword());
+            migration.setLastAnalyzedAt(LocalDateTime.now());
+            migration.setHasAnalysis(true);
+            migrationRepository.save(migration);
+        }
+    }
+
+    /**
+     * Steps 3-5 once every collection is analyzed: relationships, risks, plan and the schema document
+     */
+    private void completeAnalysis(UUID migrationId, DbConnection dbConnection, UUID schemaId,
+            List<String> collections, List<CompletableFuture<CollectionTiming>> futures, AnalysisResult result,
+            AnalysisJob job) {
+        ObjectNode shapes = collectTimings(futures, result);
+
+        // Step 3: Detect relationships
+        reportStep(job, "RELATIONSHIPS");
+        List<MongoRelationship> relationships = relationshipDetectorService.detectRelationships(
+                schemaId, collections, dbConnection);
+        result.setRelationshipCount(relationships.size());
+
+        // Step 4: Analyze risks
+        reportStep(job, "RISKS");
+        List<MigrationRisk> risks = riskAnalyzerService.analyzeRisks(migrationId, schemaId);
+        result.setRiskCount(risks.size());
+
+        // Step 5: Generate migration plan
+        reportStep(job, "PLAN");
+        ObjectNode migrationPlan = migrationPlanGeneratorService.generateMigrationPlan(schemaId);
+        result.setMigrationPlan(migrationPlan);
+
+        // Update schema with complete analysis
+        saveSchemaJson(schemaId, shapes, true);
+    }
+
+    /**
+     * Returns the collections finished before the deadline with a preliminary plan; relationship
+     * and risk analysis wait for the pending collections, which complete in the background
+     */
+    private AnalysisResult partialResult(UUID migrationId, DbConnection dbConnection, UUID schemaId,
+            List<String> collections, List<CompletableFuture<CollectionTiming>> futures,
+            CompletableFuture<Void> allCollections, AtomicBoolean abandoned, AnalysisResult result,
+            AnalysisJob job) {
+        List<CompletableFuture<CollectionTiming>> done = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            if (futures.get(i).isDone()) {
+                done.add(futures.get(i));
+            } else {
+                result.addPendingCollection(collections.get(i));
+            }
+        }
+
+        // A collection that already failed fails the request, as without a deadline; the pending
+        // collections are then dropped instead of sampling the source for a failed analysis
+        ObjectNode shapes;
+        try {
+            shapes = collectTimings(done, result);
+        } catch (RuntimeException e) {
+            abandoned.set(true);
+            futures.forEach(future -> future.cancel(false));
+            throw e;
+        }
+        result.setMigrationPlan(migrationPlanGeneratorService.generateMigrationPlan(schemaId));
+        saveSchemaJson(schemaId, shapes, false);
+
+        allCollections.whenCompleteAsync((ignored, error) -> {
+            if (error != null) {
+                logger.error("Background analysis of schema {} failed: {}", schemaId, error.getMessage());
+                return;
+            }
+            try {
+                completeAnalysis(migrationId, dbConnection, schemaId, collections, futures, new AnalysisResult(),
+                        null);
+                logger.info("Background analysis of schema {} completed", schemaId);
+            } catch (Exception e) {
+                logger.error("Background analysis of schema {} failed: {}", schemaId, e.getMessage());
+            }
+        }, analysisPool);
+
+        reportStep(job, "PARTIAL");
+        result.setPartial(true);
+        result.setSuccess(true);
+        result.setMessage("Analysis deadline reached; " + result.getPendingCollections().size()
+                + " collections still being analyzed");
+        return result;
+    }
+
+    private void reportStep(AnalysisJob job, String step) {
+        if (job != null) {
+            job.setStep(step);
+        }
+    }
+
+    private ObjectNode collectTimings(List<CompletableFuture<CollectionTiming>> futures, AnalysisResult result) {
+        ObjectNode shapes = objectMapper.createObjectNode();
+        for (CompletableFuture<CollectionTiming> future : futures) {
+            CollectionTiming timing = future.join();
+            result.addCollectionAnalysis(timing.getCollection(), timing.getFieldCount());
+            result.addCollectionTiming(timing);
+            if (timing.getShapeStats() != null) {
+                shapes.set(timing.getCollection(), timing.getShapeStats());
+            }
+        }
+        return shapes;
+    }
+
+    private void saveSchemaJson(UUID schemaId, ObjectNode shapes, boolean analyzed) {
+        Schema schema = schemaRepository.findById(schemaId)
+                .orElseThrow(() -> new RuntimeException("Schema not found: " + schemaId));
+        ObjectNode schemaJson = structuralAnalyzerService.buildSchemaRepresentation(
+                schemaStore.getFields(schemaId));
+        schemaJson.set("shapes", shapes);
+        schema.setSchemaJson(schemaJson);
+        schema.setAnalyzed(analyzed);
+        schemaRepository.save(schema);
+    }
+
+    /**
+     * Samples and analyzes one collection; runs from its source's queue, so at most
+     * the configured number of collections per source are analyzed at once
+     */
+    private CollectionTiming analyzeCollection(DbConnection dbConnection, UUID schemaId, String collectionName,
+            int sampleSize, long queuedAt, String connectionHash, String fingerprint) {
+        try {
+            long startedAt = System.currentTimeMillis();
+
+            Map<String, MongoSamplerService.FieldInfo> fieldStats;
+            int sampleCount;
+            long sampledAt;
+            ObjectNode shapeStats = null;
+            ObjectNode convergence = null;
+
+            if ("SERVER".equalsIgnoreCase(analysisConfig.getInferenceMode())) {
+                // Paths and types are grouped inside MongoDB
+                MongoSamplerService.SampleStats stats = mongoSamplerService.inferSchemaServerSide(
+                        dbConnection, collectionName, sampleSize);
+                fieldStats = stats.getFieldStats();
+                sampleCount = stats.getSampleCount();
+                sampledAt = System.currentTimeMillis();
+            } else if (analysisConfig.isAdaptiveSampling()) {
+                // Sample in chunks until the schema stops changing
+                MongoSamplerService.SampleStats stats = mongoSamplerService.sampleUntilConverged(
+                        dbConnection, collectionName);
+                fieldStats = stats.getFieldStats();
+                sampleCount = stats.getSampleCount();
+                shapeStats = stats.getShapeStats();
+                convergence = stats.getConvergence();
+                sampledAt = System.currentTimeMillis();
+            } else if (analysisConfig.isStreamingSampler()) {
+                // Sample and analyze in one pass over the cursor
+                MongoSamplerService.SampleStats stats = mongoSamplerService.sampleAndAnalyze(
+                        dbConnection, collectionName, sampleSize);
+                fieldStats = stats.getFieldStats();
+                sampleCount = stats.getSampleCount();
+                shapeStats = stats.getShapeStats();
+                sampledAt = System.currentTimeMillis();
+            } else {
                 // Sample documents
                 List<Document> samples = mongoSamplerService.sampleCollection(
                         dbConnection, collectionName, sampleSize);
+                sampledAt = System.currentTimeMillis();
 
                 // Analyze structure
-                Map<String, MongoSamplerService.FieldInfo> fieldStats = mongoSamplerService.analyzeFields(samples);
+                fieldStats = mongoSamplerService.analyzeFields(samples);
+                sampleCount = samples.size();
+            }
 
-                // Save schema fields
-                List<MongoSchemaField> schemaFields = structuralAnalyzerService.analyzeCollectionStructure(
-                        schemaId, collectionName, fieldStats, samples.size());
+            // Save schema fields
+            List<MongoSchemaField> schemaFields = structuralAnalyzerService.analyzeCollectionStructure(
+                    schemaId, collectionName, fieldStats, sampleCount);
+            long finishedAt = System.currentTimeMillis();
 
-                result.addCollectionAnalysis(collectionName, schemaFields.size());
+            logger.debug("Analyzed collection {} in {} ms ({} samples, {} fields)",
+                    collectionName, finishedAt - startedAt, sampleCount, schemaFields.size());
+
+            CollectionTiming timing = new CollectionTiming(collectionName, schemaFields.size(), sampleCount,
+                    startedAt - queuedAt, sampledAt - startedAt, finishedAt - sampledAt);
+            timing.setShapeStats(shapeStats);
+            timing.setConvergence(convergence);
+
+            if (fingerprint != null) {
+                saveCachedAnalysis(connectionHash, schemaId, collectionName, fingerprint, sampleCount, shapeStats);
             }
+            return timing;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to analyze collection " + collectionName + ": " + e.getMessage(), e);
+        }
+    }
 
-            // Step 3: Detect relationships
-            List<MongoRelationship> relationships = relationshipDetectorService.detectRelationships(
-                    schemaId, collections);
-            result.setRelationshipCount(relationships.size());
+    /**
+     * Copies the previous fields of an unchanged collection into this schema;
+     * returns null when there is no matching cache entry to reuse
+     */
+    private CollectionTiming reuseCachedAnalysis(String connectionHash, UUID schemaId, String collectionName,
+            String fingerprint) {
+        long startedAt = System.currentTimeMillis();
+        Optional<CollectionAnalysisCache> cached = collectionAnalysisCacheRepository
+                .findByConnectionHashAndCollectionName(connectionHash, collectionName);
+        if (cached.isEmpty() || !fingerprint.equals(cached.get().getFingerprint())) {
+            return null;
+        }
 
-            // Step 4: Analyze risks
-            List<MigrationRisk> risks = riskAnalyzerService.analyzeRisks(migrationId, schemaId);
-            result.setRiskCount(risks.size());
+        CollectionAnalysisCache entry = cached.get();
+        List<MongoSchemaField> previous = schemaStore.getCollectionFields(entry.getSchemaId(), collectionName);
+        if (previous.isEmpty()) {
+            return null;
+        }
 
-            // Step 5: Generate migration plan
-            ObjectNode migrationPlan = migrationPlanGeneratorService.generateMigrationPlan(schemaId);
-            result.setMigrationPlan(migrationPlan);
+        List<MongoSchemaField> copies = new ArrayList<>();
+        for (MongoSchemaField field : previous) {
+            MongoSchemaField copy = new MongoSchemaField(schemaId, field.getCollectionName(), field.getFieldName(),
+                    field.getFieldPath(), field.getDataTypes(), field.getFrequency(), field.getIsRequired(),
+                    field.getIsArray());
+            copy.setTypeCounts(field.getTypeCounts());
+            copy.setElementTypeCounts(field.getElementTypeCounts());
+            copy.setNestedSchema(field.getNestedSchema());
+            copy.setStatistics(field.getStatistics());
+            copies.add(copy);
+        }
+        schemaStore.saveCollection(schemaId, collectionName, copies);
 
-            // Update schema with complete analysis
-            schema.setSchemaJson(structuralAnalyzerService.buildSchemaRepresentation(
-                    mongoSchemaFieldRepository.findBySchemaId(schemaId)));
-            schema.setAnalyzed(true);
-            schemaRepository.save(schema);
+        // Point the cache at the newest copy so older schemas can be dropped
+        entry.setSchemaId(schemaId);
+        collectionAnalysisCacheRepository.save(entry);
 
-            result.setSuccess(true);
-            result.setMessage("Analysis completed successfully");
+        logger.debug("Reused analysis of unchanged collection {} ({} fields)", collectionName, copies.size());
+
+        int sampleCount = entry.getSampleCount() != null ? entry.getSampleCount() : 0;
+        CollectionTiming timing = new CollectionTiming(collectionName, copies.size(), sampleCount,
+                0, 0, System.currentTimeMillis() - startedAt);
+        timing.setShapeStats(entry.getShapeStats() instanceof ObjectNode ? (ObjectNode) entry.getShapeStats() : null);
+        timing.setReused(true);
+        return timing;
+    }
 
+    /**
+     * The collection's change fingerprint plus every setting that changes what sampling
+     * produces, so results of another sample size, strategy or mode are not reused
+     */
+    private String analysisFingerprint(String changeFingerprint, int sampleSize) {
+        return changeFingerprint + ":" + sampleSize
+                + ":" + analysisConfig.getInferenceMode()
+                + ":" + analysisConfig.getSamplingStrategy()
+                + (analysisConfig.isStreamingSampler() ? ":streaming" : "")
+                + (analysisConfig.isAdaptiveSampling() ? ":adaptive" : "");
+    }
+
+    /**
+     * The cache is an optimization, so failing to write it never fails the analysis. Jobs of
+     * different migrations may analyze the same source at once; the one that loses the race
+     * to insert the entry updates it instead.
+     */
+    private void saveCachedAnalysis(String connectionHash, UUID schemaId, String collectionName, String fingerprint,
+            int sampleCount, ObjectNode shapeStats) {
+        try {
+            writeCachedAnalysis(connectionHash, schemaId, collectionName, fingerprint, sampleCount, shapeStats);
+        } catch (DataIntegrityViolationException e) {
+            try {
+                writeCachedAnalysis(connectionHash, schemaId, collectionName, fingerprint, sampleCount, shapeStats);
+            } catch (Exception retryError) {
+                logger.warn("Failed to cache analysis of collection {}: {}", collectionName, retryError.getMessage());
+            }
         } catch (Exception e) {
-            result.setSuccess(false);
-            result.setMessage("Analysis failed: " + e.getMessage());
-            result.setError(e.getMessage());
+            logger.warn("Failed to cache analysis of collection {}: {}", collectionName, e.getMessage());
+        }
+    }
+
+    private void writeCachedAnalysis(String connectionHash, UUID schemaId, String collectionName, String fingerprint,
+            int sampleCount, ObjectNode shapeStats) {
+        CollectionAnalysisCache entry = collectionAnalysisCacheRepository
+                .findByConnectionHashAndCollectionName(connectionHash, collectionName)
+                .orElseGet(() -> new CollectionAnalysisCache(connectionHash, collectionName));
+        entry.setFingerprint(fingerprint);
+        entry.setSchemaId(schemaId);
+        entry.setSampleCount(sampleCount);
+        entry.setShapeStats(shapeStats);
+        entry.setAnalyzedAt(LocalDateTime.now());
+        collectionAnalysisCacheRepository.save(entry);
+    }
+
+    private String sourceKey(DbConnection dbConnection) {
+        if (dbConnection.getConnectionString() != null && !dbConnection.getConnectionString().isEmpty()) {
+            return dbConnection.getConnectionString();
         }
+        return dbConnection.getHost() + ":" + dbConnection.getPort();
+    }
 
-        return result;
+    /**
+     * Collection analyses of one source waiting for the shared pool
+     * Only `limit` of them are handed to the pool at a time; the rest wait here instead of
+     * on a pool thread, so a busy source cannot hold the threads other sources need.
+     */
+    private final class SourceQueue {
+        private final int limit;
+        private final Queue<Runnable> waiting = new ArrayDeque<>();
+        private int running = 0;
+
+        SourceQueue(int limit) {
+            this.limit = Math.max(1, limit);
+        }
+
+        <T> CompletableFuture<T> submit(Supplier<T> task) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            synchronized (this) {
+                waiting.add(() -> {
+                    try {
+                        future.complete(task.get());
+                    } catch (Throwable t) {
+                        future.completeExceptionally(t);
+                    }
+                });
+            }
+            dispatch();
+            return future;
+        }
+
+        private synchronized void dispatch() {
+            while (running < limit && !waiting.isEmpty()) {
+                Runnable task = waiting.poll();
+                running++;
+                analysisPool.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        finished();
+                    }
+                });
+            }
+        }
+
+        private void finished() {
+            synchronized (this) {
+                running--;
+            }
+            dispatch();
+        }
+    }
+
+    /**
+     * Per-collection timings (and document shape statistics) of an analysis run
+     */
+    public static class CollectionTiming {
+        private final String collection;
+        private final int fieldCount;
+        private final int sampleCount;
+        private final long waitMs; // Queued behind the per-source limit
+        private final long sampleMs;
+        private final long analyzeMs;
+        private ObjectNode shapeStats; // Null when shapes were not tracked
+        private boolean reused; // Fields copied from the previous analysis of an unchanged collection
+        private ObjectNode convergence; // Chosen sample size and convergence stats of adaptive sampling
+
+        public CollectionTiming(String collection, int fieldCount, int sampleCount,
+                long waitMs, long sampleMs, long analyzeMs) {
+            this.collection = collection;
+            this.fieldCount = fieldCount;
+            this.sampleCount = sampleCount;
+            this.waitMs = waitMs;
+            this.sampleMs = sampleMs;
+            this.analyzeMs = analyzeMs;
+        }
+
+        public String getCollection() {
+            return collection;
+        }
+
+        public int getFieldCount() {
+            return fieldCount;
+        }
+
+        public int getSampleCount() {
+            return sampleCount;
+        }
+
+        public long getWaitMs() {
+            return waitMs;
+        }
+
+        public long getSampleMs() {
+            return sampleMs;
+        }
+
+        public long getAnalyzeMs() {
+            return analyzeMs;
+        }
+
+        public long getTotalMs() {
+            return sampleMs + analyzeMs;
+        }
+
+        public ObjectNode getShapeStats() {
+            return shapeStats;
+        }
+
+        public void setShapeStats(ObjectNode shapeStats) {
+            this.shapeStats = shapeStats;
+        }
+
+        public ObjectNode getConvergence() {
+            return convergence;
+        }
+
+        public void setConvergence(ObjectNode convergence) {
+            this.convergence = convergence;
+        }
+
+        public boolean isReused() {
+            return reused;
+        }
+
+        public void setReused(boolean reused) {
+            this.reused = reused;
+        }
     }
 
     /**
@@ -124,6 +655,9 @@ public class MongoAnalysisOrchestratorService {
         private int relationshipCount;
         private int riskCount;
         private ObjectNode migrationPlan;
+        private List<CollectionTiming> collectionTimings = new ArrayList<>();
+        private boolean partial; // Deadline passed before every collection was analyzed
+        private List<String> pendingCollections = new ArrayList<>();
 
         public boolean isSuccess() {
             return success;
@@ -196,5 +730,29 @@ public class MongoAnalysisOrchestratorService {
         public void setMigrationPlan(ObjectNode migrationPlan) {
             this.migrationPlan = migrationPlan;
         }
+
+        public List<CollectionTiming> getCollectionTimings() {
+            return collectionTimings;
+        }
+
+        public void addCollectionTiming(CollectionTiming timing) {
+            this.collectionTimings.add(timing);
+        }
+
+        public boolean isPartial() {
+            return partial;
+        }
+
+        public void setPartial(boolean partial) {
+            this.partial = partial;
+        }
+
+        public List<String> getPendingCollections() {
+            return pendingCollections;
+        }
+
+        public void addPendingCollection(String collection) {
+            this.pendingCollections.add(collection);
+        }
     }
 }
@@ -2,19 +2,30 @@ package com.sahil.backend.service;
 
 import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoException;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.MongoIterable;
+import com.sahil.backend.model.CollectionStats;
 import com.sahil.backend.model.DbConnection;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class MongoConnectionService {
 
+    private static final Logger logger = LoggerFactory.getLogger(MongoConnectionService.class);
+
     /**
      * Creates a MongoDB client from connection details
      */
@@ -66,13 +77,109 @@ public class MongoConnectionService {
     }
 
     /**
-     * Gets collection statistics
+     * Gets the collection's document count from metadata (may lag recent writes)
      */
     public long getCollectionDocumentCount(DbConnection dbConnection, String collectionName) {
+        return getCollectionDocumentCount(dbConnection, collectionName, false);
+    }
+
+    /**
+     * Gets the collection's document count; exact counts scan the _id index
+     */
+    public long getCollectionDocumentCount(DbConnection dbConnection, String collectionName, boolean exact) {
+        return getCollectionStats(dbConnection, collectionName, exact).getDocumentCount();
+    }
+
+    /**
+     * Gets collection statistics
+     */
+    public CollectionStats getCollectionStats(DbConnection dbConnection, String collectionName, boolean exact) {
+        try (MongoClient mongoClient = createMongoClient(dbConnection)) {
+            MongoDatabase database = mongoClient.getDatabase(dbConnection.getDatabaseName());
+            return readCollectionStats(database, collectionName, exact);
+        }
+    }
+
+    /**
+     * Reads count and size metadata with $collStats (summed across shards), falling back
+     * to estimatedDocumentCount where $collStats is unavailable (views, missing privileges).
+     * Neither touches documents; countDocuments runs only when an exact count is requested.
+     */
+    public CollectionStats readCollectionStats(MongoDatabase database, String collectionName, boolean exact) {
+        MongoCollection<Document> collection = database.getCollection(collectionName);
+        CollectionStats stats = new CollectionStats(collectionName);
+        boolean hasStorageStats = false;
+
+        try {
+            long count = 0;
+            long dataSize = 0;
+            long storageSize = 0;
+            List<Document> pipeline = Collections.singletonList(
+                    new Document("$collStats", new Document("storageStats", new Document())));
+            for (Document shardStats : collection.aggregate(pipeline)) {
+                Document storageStats = shardStats.get("storageStats", Document.class);
+                if (storageStats == null) {
+                    continue;
+                }
+                hasStorageStats = true;
+                count += toLong(storageStats.get("count"));
+                dataSize += toLong(storageStats.get("size"));
+                storageSize += toLong(storageStats.get("storageSize"));
+            }
+
+            if (hasStorageStats) {
+                stats.setDocumentCount(count);
+                stats.setDataSizeBytes(dataSize);
+                stats.setStorageSizeBytes(storageSize);
+                stats.setAvgObjSizeBytes(count > 0 ? dataSize / count : 0);
+            }
+        } catch (MongoException e) {
+            logger.debug("$collStats unavailable for {}: {}", collectionName, e.getMessage());
+        }
+
+        if (!hasStorageStats) {
+            stats.setDocumentCount(collection.estimatedDocumentCount());
+        }
+
+        if (exact) {
+            stats.setDocumentCount(collection.countDocuments());
+            stats.setExact(true);
+        }
+
+        return stats;
+    }
+
+    /**
+     * Cheap change fingerprints for the given collections, read over one client:
+     * metadata count and data size plus the highest _id (an _id index lookup).
+     * ObjectIds carry their creation time, so inserts move the fingerprint even
+     * when counts are stale. Collections whose metadata cannot be read are omitted.
+     */
+    public Map<String, String> getChangeFingerprints(DbConnection dbConnection, List<String> collectionNames) {
+        Map<String, String> fingerprints = new HashMap<>();
         try (MongoClient mongoClient = createMongoClient(dbConnection)) {
             MongoDatabase database = mongoClient.getDatabase(dbConnection.getDatabaseName());
-            return database.getCollection(collectionName).countDocuments();
+            for (String collectionName : collectionNames) {
+                try {
+                    CollectionStats stats = readCollectionStats(database, collectionName, false);
+                    Document last = database.getCollection(collectionName).find()
+                            .projection(new Document("_id", 1))
+                            .sort(new Document("_id", -1))
+                            .limit(1)
+                            .first();
+                    String maxId = last != null ? String.valueOf(last.get("_id")) : "";
+                    fingerprints.put(collectionName,
+                            stats.getDocumentCount() + ":" + stats.getDataSizeBytes() + ":" + maxId);
+                } catch (MongoException e) {
+                    logger.debug("No change fingerprint for {}: {}", collectionName, e.getMessage());
+                }
+            }
         }
+        return fingerprints;
+    }
+
+    private long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
     }
 
     /**
@@ -6,13 +6,17 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.MongoIterable;
+import com.sahil.backend.config.MongoAnalysisConfig;
 import com.sahil.backend.model.DbConnection;
 import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 @Service
 public class MongoSamplerService {
@@ -23,7 +27,11 @@ public class MongoSamplerService {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MongoAnalysisConfig analysisConfig;
+
     private static final int DEFAULT_SAMPLE_SIZE = 1000;
+    private static final int TOP_SHAPES = 10; // Shapes listed per collection in shape statistics
 
     /**
      * Samples documents from a collection
@@ -33,102 +41,213 @@ public class MongoSamplerService {
             MongoDatabase database = mongoClient.getDatabase(dbConnection.getDatabaseName());
             MongoCollection<Document> collection = database.getCollection(collectionName);
 
-            long totalDocs = collection.countDocuments();
             List<Document> samples = new ArrayList<>();
+            readSample(collection, sampleSize, samples::add);
+            return samples;
+        }
+    }
+
+    /**
+     * Samples a collection and feeds each document into the field statistics as the
+     * cursor returns it, so memory is bounded by the number of distinct fields rather
+     * than by sample size times document size
+     */
+    public SampleStats sampleAndAnalyze(DbConnection dbConnection, String collectionName, int sampleSize) {
+        try (MongoClient mongoClient = mongoConnectionService.createMongoClient(dbConnection)) {
+            MongoDatabase database = mongoClient.getDatabase(dbConnection.getDatabaseName());
+            MongoCollection<Document> collection = database.getCollection(collectionName);
+
+            SampleStats stats = new SampleStats();
+            readSample(collection, sampleSize, stats::accept);
+            return stats;
+        }
+    }
+
+    /**
+     * Samples in chunks until the field set and type distribution stop changing, or the
+     * document or time budget runs out; the chosen sample size and convergence statistics
+     * are reported with the result
+     */
+    public SampleStats sampleUntilConverged(DbConnection dbConnection, String collectionName) {
+        try (MongoClient mongoClient = mongoConnectionService.createMongoClient(dbConnection)) {
+            MongoDatabase database = mongoClient.getDatabase(dbConnection.getDatabaseName());
+            MongoCollection<Document> collection = database.getCollection(collectionName);
+
+            long totalDocs = collection.estimatedDocumentCount();
+            int chunkSize = analysisConfig.getAdaptiveChunkSize();
+            int maxDocuments = analysisConfig.getAdaptiveMaxSampleSize();
+            long deadline = System.currentTimeMillis() + analysisConfig.getAdaptiveMaxMillis();
+
+            SampleStats stats = new SampleStats();
+            SchemaConvergence convergence = new SchemaConvergence(analysisConfig.getConvergenceThreshold());
+            Set<Object> seen = new HashSet<>(); // Chunks are drawn independently; count each document once
+            String stopReason;
 
-            if (totalDocs <= sampleSize) {
-                // If collection is small, get all documents
-                collection.find().into(samples);
-            } else {
-                // Use aggregation $sample for random sampling
-                List<Document> pipeline = Arrays.asList(
-                        new Document("$sample", new Document("size", sampleSize)));
-                collection.aggregate(pipeline).into(samples);
+            while (true) {
+                int before = stats.getSampleCount();
+                int chunk = Math.min(chunkSize, maxDocuments - before);
+                readSample(collection, chunk, doc -> {
+                    Object id = doc.get("_id");
+                    if (id == null || seen.add(id)) {
+                        stats.accept(doc);
+                    }
+                });
+
+                if (totalDocs <= chunk || stats.getSampleCount() == before) {
+                    stopReason = "exhausted";
+                    break;
+                }
+                if (convergence.update(stats.getFieldStats(), stats.getSampleCount())) {
+                    stopReason = "converged";
+                    break;
+                }
+                if (stats.getSampleCount() >= maxDocuments) {
+                    stopReason = "documentBudget";
+                    break;
+                }
+                if (System.currentTimeMillis() >= deadline) {
+                    stopReason = "timeBudget";
+                    break;
+                }
             }
 
-            return samples;
+            stats.setConvergence(convergence.toJson(objectMapper, stats.getSampleCount(), stopReason));
+            return stats;
         }
     }
 
     /**
-     * Analyzes field frequency and data types from samples
+     * Streams a sample of the collection into the sink: every document of a small
+     * collection, otherwise stratified _id-range slices or $sample
      */
-    public Map<String, FieldInfo> analyzeFields(List<Document> samples) {
-        Map<String, FieldInfo> fieldStats = new HashMap<>();
-        int totalDocs = samples.size();
+    private void readSample(MongoCollection<Document> collection, int sampleSize, Consumer<Document> sink) {
+        // Only decides how to sample, so metadata count is enough
+        long totalDocs = collection.estimatedDocumentCount();
 
-        for (Document doc : samples) {
-            analyzeDocument(doc, "", fieldStats, totalDocs);
+        if (totalDocs <= sampleSize) {
+            // If collection is small, read all documents
+            forEach(collection.find(), sink);
+            return;
         }
 
-        return fieldStats;
+        if (useStratifiedSampling(totalDocs, sampleSize)) {
+            StratifiedIdSampler sampler = new StratifiedIdSampler(
+                    analysisConfig.getSampleStrata(), analysisConfig.getSampleSliceSize());
+            if (sampler.sample(collection, sampleSize, sink)) {
+                return;
+            }
+            // _id is neither ObjectId nor integer: fall back to $sample
+        }
+
+        // Use aggregation $sample for random sampling
+        forEach(collection.aggregate(Arrays.asList(
+                new Document("$sample", new Document("size", sampleSize)))), sink);
+    }
+
+    private boolean useStratifiedSampling(long totalDocs, int sampleSize) {
+        String strategy = analysisConfig.getSamplingStrategy();
+        if ("STRATIFIED".equalsIgnoreCase(strategy)) {
+            return true;
+        }
+        if (!"AUTO".equalsIgnoreCase(strategy)) {
+            return false;
+        }
+        // $sample scans and sorts the collection once the sample exceeds 5% of it
+        return totalDocs >= analysisConfig.getStratifiedMinDocuments() || sampleSize * 20L > totalDocs;
+    }
+
+    private void forEach(MongoIterable<Document> source, Consumer<Document> sink) {
+        try (MongoCursor<Document> cursor = source.iterator()) {
+            while (cursor.hasNext()) {
+                sink.accept(cursor.next());
+            }
+        }
     }
 
     /**
-     * Recursively analyzes document fields
+     * Infers field paths and type counts with an aggregation pipeline so that only
+     * (path, type, count) tuples are transferred instead of the sampled documents.
+     * Value statistics are not available in this mode.
      */
-    private void analyzeDocument(Document doc, String prefix, Map<String, FieldInfo> fieldStats, int totalDocs) {
-        for (Map.Entry<String, Object> entry : doc.entrySet()) {
-            String fieldName = entry.getKey();
-            String fieldPath = prefix.isEmpty() ? fieldName : prefix + "." + fieldName;
-            Object value = entry.getValue();
-
-            FieldInfo info = fieldStats.getOrDefault(fieldPath, new FieldInfo(fieldPath));
-            info.incrementCount();
-
-            // Detect data type
-            String dataType = detectDataType(value);
-            info.addDataType(dataType);
-
-            // Check if array
-            if (value instanceof List) {
-                info.setArray(true);
-                List<?> list = (List<?>) value;
-                if (!list.isEmpty() && list.get(0) instanceof Document) {
-                    // Analyze nested documents in array
-                    for (Object item : list) {
-                        if (item instanceof Document) {
-                            analyzeDocument((Document) item, fieldPath + "[]", fieldStats, totalDocs);
-                        }
-                    }
-                }
-            } else if (value instanceof Document) {
-                // Analyze nested document
-                info.setNested(true);
-                analyzeDocument((Document) value, fieldPath, fieldStats, totalDocs);
+    public SampleStats inferSchemaServerSide(DbConnection dbConnection, String collectionName, int sampleSize) {
+        try (MongoClient mongoClient = mongoConnectionService.createMongoClient(dbConnection)) {
+            MongoDatabase database = mongoClient.getDatabase(dbConnection.getDatabaseName());
+            MongoCollection<Document> collection = database.getCollection(collectionName);
+
+            // Small collections are analyzed whole, as with client-side sampling
+            long totalDocs = collection.estimatedDocumentCount();
+            List<Document> pipeline = SchemaInferencePipeline.build(
+                    totalDocs <= sampleSize ? 0 : sampleSize, analysisConfig.getMaxNestingDepth());
+
+            Document result = collection.aggregate(pipeline).allowDiskUse(true).first();
+            if (result == null) {
+                return new SampleStats(new HashMap<>(), 0);
             }
+            return new SampleStats(SchemaInferencePipeline.toFieldStats(result),
+                    SchemaInferencePipeline.documentCount(result));
+        }
+    }
 
-            fieldStats.put(fieldPath, info);
+    /**
+     * Analyzes field frequency and data types from samples
+     */
+    public Map<String, FieldInfo> analyzeFields(List<Document> samples) {
+        FieldPathTrie trie = new FieldPathTrie(analysisConfig.getMaxNestingDepth());
+        for (Document doc : samples) {
+            trie.accept(doc);
         }
+        return trie.toFieldStats();
     }
 
     /**
-     * Detects BSON data type
+     * Field statistics accumulated one document at a time
      */
-    private String detectDataType(Object value) {
-        if (value == null)
-            return "null";
-        if (value instanceof String)
-            return "string";
-        if (value instanceof Integer)
-            return "int32";
-        if (value instanceof Long)
-            return "int64";
-        if (value instanceof Double)
-            return "double";
-        if (value instanceof Boolean)
-            return "boolean";
-        if (value instanceof Date)
-            return "date";
-        if (value instanceof org.bson.types.ObjectId)
-            return "objectId";
-        if (value instanceof List)
-            return "array";
-        if (value instanceof Document)
-            return "object";
-        if (value instanceof byte[])
-            return "binary";
-        return "unknown";
+    public class SampleStats {
+        private final FieldPathTrie trie; // Null when statistics were computed server-side
+        private Map<String, FieldInfo> fieldStats;
+        private int sampleCount;
+        private ObjectNode convergence; // Set by adaptive sampling
+
+        public SampleStats() {
+            this.trie = new FieldPathTrie(analysisConfig.getMaxNestingDepth());
+        }
+
+        SampleStats(Map<String, FieldInfo> fieldStats, int sampleCount) {
+            this.trie = null;
+            this.fieldStats = fieldStats;
+            this.sampleCount = sampleCount;
+        }
+
+        public void accept(Document doc) {
+            trie.accept(doc);
+            fieldStats = null;
+        }
+
+        public Map<String, FieldInfo> getFieldStats() {
+            if (fieldStats == null) {
+                fieldStats = trie.toFieldStats();
+            }
+            return fieldStats;
+        }
+
+        public int getSampleCount() {
+            return trie != null ? trie.getDocumentCount() : sampleCount;
+        }
+
+        public ObjectNode getConvergence() {
+            return convergence;
+        }
+
+        void setConvergence(ObjectNode convergence) {
+            this.convergence = convergence;
+        }
+
+        /**
+         * Document shape distribution, or null when statistics were computed server-side
+         */
+        public ObjectNode getShapeStats() {
+            return trie != null ? trie.toShapeStats(objectMapper, TOP_SHAPES) : null;
+        }
     }
 
     /**
@@ -140,6 +259,9 @@ public class MongoSamplerService {
         private Set<String> dataTypes;
         private boolean isArray;
         private boolean isNested;
+        private FieldSketch sketch; // Value statistics, null if no scalar values were seen
+        private Map<String, Integer> typeCounts = new HashMap<>(); // Occurrences per BSON type
+        private Map<String, Integer> elementTypeCounts = new HashMap<>(); // Scalar array element types
 
         public FieldInfo(String fieldPath) {
             this.fieldPath = fieldPath;
@@ -149,12 +271,24 @@ public class MongoSamplerService {
             this.isNested = false;
         }
 
+        public FieldInfo(String fieldPath, int count, Map<String, Integer> typeCounts, boolean isArray,
+                boolean isNested, FieldSketch sketch) {
+            this.fieldPath = fieldPath;
+            this.count = count;
+            this.dataTypes = new HashSet<>(typeCounts.keySet());
+            this.typeCounts = typeCounts;
+            this.isArray = isArray;
+            this.isNested = isNested;
+            this.sketch = sketch;
+        }
+
         public void incrementCount() {
             this.count++;
         }
 
         public void addDataType(String type) {
             this.dataTypes.add(type);
+            this.typeCounts.merge(type, 1, Integer::sum);
         }
 
         public void setArray(boolean array) {
@@ -185,6 +319,22 @@ public class MongoSamplerService {
             return isNested;
         }
 
+        public Map<String, Integer> getTypeCounts() {
+            return typeCounts;
+        }
+
+        public Map<String, Integer> getElementTypeCounts() {
+            return elementTypeCounts;
+        }
+
+        public void setElementTypeCounts(Map<String, Integer> elementTypeCounts) {
+            this.elementTypeCounts = elementTypeCounts;
+        }
+
+        public FieldSketch getSketch() {
+            return sketch;
+        }
+
         public double getFrequency(int totalDocs) {
             return (double) count / totalDocs;
         }
@@ -1,35 +1,45 @@
 package com.sahil.backend.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sahil.backend.config.MongoAnalysisConfig;
+import com.sahil.backend.model.DbConnection;
 import com.sahil.backend.model.MongoRelationship;
 import com.sahil.backend.model.MongoSchemaField;
-import com.sahil.backend.repository.MongoRelationshipRepository;
-import com.sahil.backend.repository.MongoSchemaFieldRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Service
 public class RelationshipDetectorService {
 
     @Autowired
-    private MongoSchemaFieldRepository mongoSchemaFieldRepository;
+    private SchemaStore schemaStore;
 
     @Autowired
-    private MongoRelationshipRepository mongoRelationshipRepository;
+    private RelationshipVerifierService relationshipVerifierService;
 
-    // Patterns for detecting foreign key naming conventions
-    private static final Pattern UNDERSCORE_ID_PATTERN = Pattern.compile("(.+)_id$");
-    private static final Pattern CAMEL_CASE_ID_PATTERN = Pattern.compile("(.+)Id$");
-    private static final Pattern PLURAL_PATTERN = Pattern.compile("(.+)s$");
+    @Autowired
+    private MongoAnalysisConfig analysisConfig;
+
+    @Autowired
+    private AnalysisResultWriter analysisResultWriter;
 
     /**
      * Detects relationships across all collections
      */
     public List<MongoRelationship> detectRelationships(UUID schemaId, List<String> collectionNames) {
-        List<MongoRelationship> relationships = new ArrayList<>();
-        List<MongoSchemaField> allFields = mongoSchemaFieldRepository.findBySchemaId(schemaId);
+        return detectRelationships(schemaId, collectionNames, null);
+    }
+
+    /**
+     * Detects relationships across all collections; with a connection, candidates
+     * are scored by how many sampled source values exist in the target
+     */
+    public List<MongoRelationship> detectRelationships(UUID schemaId, List<String> collectionNames,
+            DbConnection dbConnection) {
+        List<MongoSchemaField> allFields = schemaStore.getFields(schemaId);
 
         // Group fields by collection
         Map<String, List<MongoSchemaField>> fieldsByCollection = new HashMap<>();
@@ -39,33 +49,27 @@ public class RelationshipDetectorService {
                     .add(field);
         }
 
-        // Detect relationships for each collection
-        for (String sourceCollection : collectionNames) {
-            List<MongoSchemaField> fields = fieldsByCollection.get(sourceCollection);
-            if (fields == null)
-                continue;
-
-            for (MongoSchemaField field : fields) {
-                // Check for ObjectId references
-                if (isObjectIdField(field)) {
-                    MongoRelationship rel = detectObjectIdRelationship(
-                            schemaId, sourceCollection, field, collectionNames);
-                    if (rel != null) {
-                        relationships.add(rel);
-                    }
-                }
+        // Name variants are indexed once; collections are evaluated in parallel
+        CollectionNameIndex nameIndex = new CollectionNameIndex(collectionNames);
+        List<Map.Entry<MongoRelationship, String>> detected = collectionNames.parallelStream()
+                .filter(fieldsByCollection::containsKey)
+                .flatMap(sourceCollection -> detectCollectionRelationships(
+                        schemaId, sourceCollection, fieldsByCollection.get(sourceCollection), nameIndex).stream())
+                .collect(Collectors.toList());
+
+        // Candidate relationships mapped to the source field's path
+        Map<MongoRelationship, String> sourcePaths = new LinkedHashMap<>();
+        for (Map.Entry<MongoRelationship, String> entry : detected) {
+            sourcePaths.put(entry.getKey(), entry.getValue());
+        }
+        List<MongoRelationship> relationships = new ArrayList<>(sourcePaths.keySet());
 
-                // Check for naming convention references
-                MongoRelationship rel = detectNamingConventionRelationship(
-                        schemaId, sourceCollection, field, collectionNames);
-                if (rel != null) {
-                    relationships.add(rel);
-                }
-            }
+        if (dbConnection != null && analysisConfig.isVerifyRelationships()) {
+            relationshipVerifierService.verify(dbConnection, sourcePaths);
         }
 
         // Save all relationships
-        return mongoRelationshipRepository.saveAll(relationships);
+        return analysisResultWriter.insertAll(relationships);
     }
 
     /**
@@ -84,115 +88,85 @@ public class RelationshipDetectorService {
     }
 
     /**
-     * Detects relationship based on ObjectId type and naming
+     * Detects if a top-level array field holds ObjectIds (by its dominant element type)
      */
-    private MongoRelationship detectObjectIdRelationship(
-            UUID schemaId,
-            String sourceCollection,
-            MongoSchemaField field,
-            List<String> collectionNames) {
-
-        String fieldName = field.getFieldName();
-
-        // Skip _id field
-        if ("_id".equals(fieldName)) {
-            return null;
+    private boolean isObjectIdArray(MongoSchemaField field) {
+        JsonNode elementTypes = field.getElementTypeCounts();
+        if (!Boolean.TRUE.equals(field.getIsArray()) || elementTypes == null || field.getFieldPath().contains(".")) {
+            return false;
         }
 
-        String targetCollection = inferTargetCollection(fieldName, collectionNames);
-        if (targetCollection != null) {
-            return new MongoRelationship(
-                    schemaId,
-                    sourceCollection,
-                    fieldName,
-                    targetCollection,
-                    "_id",
-                    "ONE_TO_MANY",
-                    0.9, // High confidence for ObjectId + naming match
-                    "OBJECTID");
+        long objectIds = elementTypes.path("objectId").asLong(0);
+        long total = 0;
+        for (JsonNode count : elementTypes) {
+            total += count.asLong();
         }
-
-        return null;
+        return objectIds > 0 && objectIds * 2 > total;
     }
 
     /**
-     * Detects relationship based on naming conventions
+     * Detects the relationships of one collection's fields
      */
-    private MongoRelationship detectNamingConventionRelationship(
+    private List<Map.Entry<MongoRelationship, String>> detectCollectionRelationships(
             UUID schemaId,
             String sourceCollection,
-            MongoSchemaField field,
-            List<String> collectionNames) {
-
-        String fieldName = field.getFieldName();
-        String targetCollection = inferTargetCollection(fieldName, collectionNames);
-
-        if (targetCollection != null && !isObjectIdField(field)) {
-            // Lower confidence for non-ObjectId fields
-            return new MongoRelationship(
-                    schemaId,
-                    sourceCollection,
-                    fieldName,
-                    targetCollection,
-                    "_id",
-                    "ONE_TO_MANY",
-                    0.6, // Medium confidence for naming convention only
-                    "NAMING_CONVENTION");
-        }
+            List<MongoSchemaField> fields,
+            CollectionNameIndex nameIndex) {
 
-        return null;
-    }
+        List<Map.Entry<MongoRelationship, String>> detected = new ArrayList<>();
+        for (MongoSchemaField field : fields) {
+            String fieldName = field.getFieldName();
 
-    /**
-     * Infers target collection from field name
-     */
-    private String inferTargetCollection(String fieldName, List<String> collectionNames) {
-        // Try underscore pattern: user_id -> user
-        java.util.regex.Matcher underscoreMatcher = UNDERSCORE_ID_PATTERN.matcher(fieldName);
-        if (underscoreMatcher.matches()) {
-            String baseName = underscoreMatcher.group(1);
-            String targetCollection = findMatchingCollection(baseName, collectionNames);
-            if (targetCollection != null)
-                return targetCollection;
-        }
-
-        // Try camelCase pattern: userId -> user
-        java.util.regex.Matcher camelCaseMatcher = CAMEL_CASE_ID_PATTERN.matcher(fieldName);
-        if (camelCaseMatcher.matches()) {
-            String baseName = camelCaseMatcher.group(1).toLowerCase();
-            String targetCollection = findMatchingCollection(baseName, collectionNames);
-            if (targetCollection != null)
-                return targetCollection;
-        }
-
-        return null;
-    }
-
-    /**
-     * Finds matching collection name (handles singular/plural)
-     */
-    private String findMatchingCollection(String baseName, List<String> collectionNames) {
-        // Direct match
-        if (collectionNames.contains(baseName)) {
-            return baseName;
-        }
+            // Skip _id field
+            if ("_id".equals(fieldName)) {
+                continue;
+            }
 
-        // Try plural form
-        String plural = baseName + "s";
-        if (collectionNames.contains(plural)) {
-            return plural;
-        }
+            // Arrays of ObjectIds (tagIds: [...]) reference many target documents per source document
+            if (isObjectIdArray(field)) {
+                String arrayTarget = nameIndex.inferArrayTargetCollection(fieldName);
+                if (arrayTarget != null) {
+                    MongoRelationship rel = new MongoRelationship(
+                            schemaId,
+                            sourceCollection,
+                            fieldName,
+                            arrayTarget,
+                            "_id",
+                            "MANY_TO_MANY",
+                            0.9, // High confidence for ObjectId elements + naming match
+                            "OBJECTID_ARRAY");
+                    detected.add(new AbstractMap.SimpleEntry<>(rel, field.getFieldPath()));
+                }
+                continue;
+            }
 
-        // Try singular (remove 's')
-        java.util.regex.Matcher pluralMatcher = PLURAL_PATTERN.matcher(baseName);
-        if (pluralMatcher.matches()) {
-            String singular = pluralMatcher.group(1);
-            if (collectionNames.contains(singular)) {
-                return singular;
+            String targetCollection = nameIndex.inferTargetCollection(fieldName);
+            if (targetCollection == null) {
+                continue;
             }
-        }
 
-        return null;
+            MongoRelationship rel = isObjectIdField(field)
+                    ? new MongoRelationship(
+                            schemaId,
+                            sourceCollection,
+                            fieldName,
+                            targetCollection,
+                            "_id",
+                            "ONE_TO_MANY",
+                            0.9, // High confidence for ObjectId + naming match
+                            "OBJECTID")
+                    : new MongoRelationship(
+                            schemaId,
+                            sourceCollection,
+                            fieldName,
+                            targetCollection,
+                            "_id",
+                            "ONE_TO_MANY",
+                            0.6, // Medium confidence for naming convention only
+                            "NAMING_CONVENTION");
+            detected.add(new AbstractMap.SimpleEntry<>(rel, field.getFieldPath()));
+        }
+        return detected;
     }
 
     /**
@@ -0,0 +1,212 @@
+package com.sahil.backend.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.sahil.backend.config.MongoAnalysisConfig;
+import com.sahil.backend.model.DbConnection;
+import com.sahil.backend.model.MongoRelationship;
+import com.sahil.backend.util.BloomFilter;
+import com.sahil.backend.util.HyperLogLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Checks candidate relationships against the data
+ * The _id values of each target collection are loaded into a Bloom filter (targets
+ * larger than the configured bound are probed with indexed $in lookups instead), then
+ * sampled source values are tested against it; the match rate becomes the confidence.
+ * Targets are verified in parallel, so memory is bounded by threads x filter size.
+ */
+@Service
+public class RelationshipVerifierService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RelationshipVerifierService.class);
+
+    private static final int LOOKUP_BATCH_SIZE = 500; // Values per $in lookup
+
+    @Autowired
+    private MongoConnectionService mongoConnectionService;
+
+    @Autowired
+    private MongoAnalysisConfig analysisConfig;
+
+    private ExecutorService verifyPool;
+
+    @PostConstruct
+    void initVerifyPool() {
+        verifyPool = Executors.newFixedThreadPool(analysisConfig.getRelationshipVerifyThreads());
+    }
+
+    @PreDestroy
+    void shutdownVerifyPool() {
+        verifyPool.shutdownNow();
+    }
+
+    /**
+     * Replaces each candidate's confidence with its sampled match rate; candidates whose
+     * values could not be sampled keep their naming-based confidence
+     *
+     * @param sourcePaths candidate relationships mapped to the source field's path
+     */
+    public void verify(DbConnection dbConnection, Map<MongoRelationship, String> sourcePaths) {
+        if (sourcePaths.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<MongoRelationship>> byTarget = new HashMap<>();
+        for (MongoRelationship candidate : sourcePaths.keySet()) {
+            byTarget.computeIfAbsent(candidate.getTargetCollection(), k -> new ArrayList<>()).add(candidate);
+        }
+
+        try (MongoClient mongoClient = mongoConnectionService.createMongoClient(dbConnection)) {
+            MongoDatabase database = mongoClient.getDatabase(dbConnection.getDatabaseName());
+
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (Map.Entry<String, List<MongoRelationship>> entry : byTarget.entrySet()) {
+                futures.add(CompletableFuture.runAsync(
+                        () -> verifyTarget(database, entry.getKey(), entry.getValue(), sourcePaths), verifyPool));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        }
+    }
+
+    private void verifyTarget(MongoDatabase database, String targetCollection, List<MongoRelationship> candidates,
+            Map<MongoRelationship, String> sourcePaths) {
+        try {
+            MongoCollection<Document> target = database.getCollection(targetCollection);
+            BloomFilter targetIds = target.estimatedDocumentCount() <= analysisConfig.getBloomMaxIds()
+                    ? loadIds(target)
+                    : null;
+
+            for (MongoRelationship candidate : candidates) {
+                List<Object> values = sampleValues(database.getCollection(candidate.getSourceCollection()),
+                        sourcePaths.get(candidate));
+                if (values.isEmpty()) {
+                    continue;
+                }
+
+                long matched = targetIds != null ? countBloomMatches(targetIds, values) : countIdMatches(target, values);
+                double matchRate = (double) matched / values.size();
+                candidate.setConfidence(Math.round(matchRate * 1000) / 1000.0);
+
+                logger.debug("{}.{} -> {}: {} of {} sampled values match", candidate.getSourceCollection(),
+                        candidate.getSourceField(), targetCollection, matched, values.size());
+            }
+        } catch (Exception e) {
+            // Keep naming-based confidences rather than failing the analysis
+            logger.warn("Could not verify references to {}: {}", targetCollection, e.getMessage());
+        }
+    }
+
+    private BloomFilter loadIds(MongoCollection<Document> target) {
+        BloomFilter filter = new BloomFilter(
+                Math.max(1, target.estimatedDocumentCount()), analysisConfig.getBloomFalsePositiveRate());
+        try (MongoCursor<Document> cursor = target.find()
+                .projection(new Document("_id", 1))
+                .batchSize(10000)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                filter.add(hashValue(cursor.next().get("_id")));
+            }
+        }
+        return filter;
+    }
+
+    private long countBloomMatches(BloomFilter targetIds, List<Object> values) {
+        long matched = 0;
+        for (Object value : values) {
+            if (targetIds.mightContain(hashValue(value))) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Exact matches through the target's _id index, for targets too large to load
+     */
+    private long countIdMatches(MongoCollection<Document> target, List<Object> values) {
+        long matched = 0;
+        for (int i = 0; i < values.size(); i += LOOKUP_BATCH_SIZE) {
+            List<Object> batch = values.subList(i, Math.min(values.size(), i + LOOKUP_BATCH_SIZE));
+            Set<Object> found = new HashSet<>();
+            target.find(new Document("_id", new Document("$in", batch)))
+                    .projection(new Document("_id", 1))
+                    .forEach(doc -> found.add(doc.get("_id")));
+            for (Object value : batch) {
+                if (found.contains(value)) {
+                    matched++;
+                }
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Non-null values of the field (array elements flattened) from a random sample of the source
+     */
+    private List<Object> sampleValues(MongoCollection<Document> source, String fieldPath) {
+        String path = fieldPath.replace("[]", "");
+        int sampleSize = analysisConfig.getRelationshipSampleSize();
+
+        // $sample before any filter, so cost stays bounded on large sources
+        List<Document> pipeline = Arrays.asList(
+                new Document("$sample", new Document("size", sampleSize)),
+                new Document("$project", new Document("_id", 0).append(path, 1)));
+
+        List<Object> values = new ArrayList<>();
+        try (MongoCursor<Document> cursor = source.aggregate(pipeline).iterator()) {
+            while (cursor.hasNext() && values.size() < sampleSize) {
+                collectValues(cursor.next(), path.split("\\."), 0, values);
+            }
+        }
+        return values;
+    }
+
+    private void collectValues(Object node, String[] segments, int index, List<Object> out) {
+        if (node instanceof List) {
+            for (Object item : (List<?>) node) {
+                collectValues(item, segments, index, out);
+            }
+            return;
+        }
+        if (index == segments.length) {
+            if (node != null) {
+                out.add(node);
+            }
+            return;
+        }
+        if (node instanceof Document) {
+            collectValues(((Document) node).get(segments[index]), segments, index + 1, out);
+        }
+    }
+
+    /**
+     * Type-qualified hash, so an ObjectId never matches its hex string
+     */
+    private long hashValue(Object value) {
+        if (value instanceof ObjectId) {
+            return HyperLogLog.hash("oid:" + ((ObjectId) value).toHexString());
+        }
+        if (value instanceof Integer || value instanceof Long) {
+            return HyperLogLog.hash(((Number) value).longValue());
+        }
+        if (value instanceof String) {
+            return HyperLogLog.hash("str:" + value);
+        }
+        return HyperLogLog.hash(value.getClass().getSimpleName() + ":" + value);
+    }
+}
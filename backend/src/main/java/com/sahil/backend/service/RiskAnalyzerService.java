@@ -5,9 +5,7 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.sahil.backend.model.MigrationRisk;
 import com.sahil.backend.model.MongoRelationship;
 import com.sahil.backend.model.MongoSchemaField;
-import com.sahil.backend.repository.MigrationRiskRepository;
 import com.sahil.backend.repository.MongoRelationshipRepository;
-import com.sahil.backend.repository.MongoSchemaFieldRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -17,16 +15,16 @@ import java.util.*;
 public class RiskAnalyzerService {
 
     @Autowired
-    private MongoSchemaFieldRepository mongoSchemaFieldRepository;
+    private SchemaStore schemaStore;
 
     @Autowired
     private MongoRelationshipRepository mongoRelationshipRepository;
 
     @Autowired
-    private MigrationRiskRepository migrationRiskRepository;
+    private ObjectMapper objectMapper;
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private AnalysisResultWriter analysisResultWriter;
 
     /**
      * Analyzes migration risks
@@ -44,7 +42,7 @@ public class RiskAnalyzerService {
         risks.addAll(detectComplexityRisks(migrationId, schemaId));
 
         // Save all risks
-        return migrationRiskRepository.saveAll(risks);
+        return analysisResultWriter.insertAll(risks);
     }
 
     /**
@@ -52,7 +50,7 @@ public class RiskAnalyzerService {
      */
     private List<MigrationRisk> detectSchemaInconsistencies(UUID migrationId, UUID schemaId) {
         List<MigrationRisk> risks = new ArrayList<>();
-        List<MongoSchemaField> fields = mongoSchemaFieldRepository.findBySchemaId(schemaId);
+        List<MongoSchemaField> fields = schemaStore.getFields(schemaId);
 
         for (MongoSchemaField field : fields) {
             // Check for type inconsistencies
@@ -113,7 +111,7 @@ public class RiskAnalyzerService {
      */
     private List<MigrationRisk> detectDataLossRisks(UUID migrationId, UUID schemaId) {
         List<MigrationRisk> risks = new ArrayList<>();
-        List<MongoSchemaField> fields = mongoSchemaFieldRepository.findBySchemaId(schemaId);
+        List<MongoSchemaField> fields = schemaStore.getFields(schemaId);
 
         for (MongoSchemaField field : fields) {
             // Check for nested objects that will be flattened or stored as JSON
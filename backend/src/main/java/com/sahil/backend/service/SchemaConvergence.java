@@ -0,0 +1,79 @@
+package com.sahil.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Map;
+
+/**
+ * Tracks how much the discovered schema changes between sample chunks
+ * Drift is the largest shift of any field's frequency or of any type's share of a
+ * field; a chunk that reveals a new field or type counts as full drift. The schema
+ * has converged once a chunk adds nothing new and 1 - drift reaches the threshold.
+ */
+public class SchemaConvergence {
+
+    private final double threshold;
+    private Map<String, MongoSamplerService.FieldInfo> previous;
+    private int previousDocs;
+    private double drift = 1.0;
+    private int rounds;
+    private boolean converged;
+
+    public SchemaConvergence(double threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Compares the statistics after a chunk with those after the previous one
+     */
+    public boolean update(Map<String, MongoSamplerService.FieldInfo> fieldStats, int totalDocs) {
+        rounds++;
+        if (previous != null) {
+            drift = drift(fieldStats, totalDocs);
+            converged = 1.0 - drift >= threshold;
+        }
+        previous = fieldStats;
+        previousDocs = totalDocs;
+        return converged;
+    }
+
+    private double drift(Map<String, MongoSamplerService.FieldInfo> current, int totalDocs) {
+        double max = 0;
+        for (Map.Entry<String, MongoSamplerService.FieldInfo> entry : current.entrySet()) {
+            MongoSamplerService.FieldInfo field = entry.getValue();
+            MongoSamplerService.FieldInfo before = previous.get(entry.getKey());
+            if (before == null) {
+                return 1.0; // New field
+            }
+
+            max = Math.max(max, Math.abs(field.getFrequency(totalDocs) - before.getFrequency(previousDocs)));
+
+            for (Map.Entry<String, Integer> type : field.getTypeCounts().entrySet()) {
+                Integer beforeCount = before.getTypeCounts().get(type.getKey());
+                if (beforeCount == null) {
+                    return 1.0; // New type
+                }
+                double share = (double) type.getValue() / field.getCount();
+                double beforeShare = (double) beforeCount / before.getCount();
+                max = Math.max(max, Math.abs(share - beforeShare));
+            }
+        }
+        return max;
+    }
+
+    public boolean isConverged() {
+        return converged;
+    }
+
+    public ObjectNode toJson(ObjectMapper objectMapper, int sampleSize, String stopReason) {
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("sampleSize", sampleSize);
+        json.put("rounds", rounds);
+        json.put("drift", drift);
+        json.put("threshold", threshold);
+        json.put("converged", converged);
+        json.put("stopReason", stopReason);
+        return json;
+    }
+}
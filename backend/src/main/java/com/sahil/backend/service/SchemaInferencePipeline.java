@@ -0,0 +1,167 @@
+package com.sahil.backend.service;
+
+import org.bson.Document;
+
+import java.util.*;
+
+/**
+ * Aggregation pipeline that infers field paths and types inside MongoDB
+ * Each sampled document is flattened into {p: path, v: value} pairs, one nesting
+ * level per pair of stages, then grouped by path and $type; only the
+ * (path, type, count) tuples, the element types of arrays and the document count
+ * leave the server. Value statistics (FieldSketch) need the values themselves and
+ * are not collected in this mode.
+ */
+public class SchemaInferencePipeline {
+
+    // $type names mapped to the names used by client-side analysis
+    private static final Map<String, String> TYPE_NAMES = Map.ofEntries(
+            Map.entry("null", "null"),
+            Map.entry("string", "string"),
+            Map.entry("int", "int32"),
+            Map.entry("long", "int64"),
+            Map.entry("double", "double"),
+            Map.entry("bool", "boolean"),
+            Map.entry("date", "date"),
+            Map.entry("objectId", "objectId"),
+            Map.entry("array", "array"),
+            Map.entry("object", "object"),
+            Map.entry("binData", "binary"));
+
+    private SchemaInferencePipeline() {
+    }
+
+    /**
+     * Builds the pipeline; sampleSize <= 0 reads every document
+     */
+    public static List<Document> build(int sampleSize, int maxNestingDepth) {
+        List<Document> pipeline = new ArrayList<>();
+
+        if (sampleSize > 0) {
+            pipeline.add(new Document("$sample", new Document("size", sampleSize)));
+        }
+
+        // Level 0: top-level fields
+        Document topLevel = new Document("$map", new Document("input", new Document("$objectToArray", "$$ROOT"))
+                .append("as", "f")
+                .append("in", new Document("p", "$$f.k").append("v", "$$f.v")));
+        pipeline.add(new Document("$project", new Document("_id", 0)
+                .append("_lvl", topLevel)
+                .append("_all", topLevel)));
+
+        // Deeper levels: expand embedded documents and documents inside arrays
+        for (int depth = 1; depth <= maxNestingDepth; depth++) {
+            pipeline.add(new Document("$addFields", new Document("_lvl", children("$_lvl"))));
+            pipeline.add(new Document("$addFields", new Document("_all",
+                    new Document("$concatArrays", Arrays.asList("$_all", "$_lvl")))));
+        }
+
+        Document groupByPathAndType = new Document("$group", new Document("_id",
+                new Document("p", "$_all.p").append("t", new Document("$type", "$_all.v")))
+                .append("n", new Document("$sum", 1)));
+
+        // Arrays are typed by their first element, once per array, as client-side analysis does
+        Document isNonEmptyArray = new Document("$gt", Arrays.asList(
+                new Document("$cond", Arrays.asList(
+                        new Document("$isArray", "$_all.v"), new Document("$size", "$_all.v"), 0)),
+                0));
+        Document groupByPathAndElementType = new Document("$group", new Document("_id",
+                new Document("p", "$_all.p").append("t", new Document("$type",
+                        new Document("$arrayElemAt", Arrays.asList("$_all.v", 0)))))
+                .append("n", new Document("$sum", 1)));
+
+        pipeline.add(new Document("$facet", new Document()
+                .append("fields", Arrays.asList(new Document("$unwind", "$_all"), groupByPathAndType))
+                .append("elements", Arrays.asList(new Document("$unwind", "$_all"),
+                        new Document("$match", new Document("$expr", isNonEmptyArray)),
+                        groupByPathAndElementType))
+                .append("docs", Collections.singletonList(new Document("$count", "n")))));
+
+        return pipeline;
+    }
+
+    /**
+     * Expression producing the child pairs of every pair in the given array
+     */
+    private static Document children(String pairs) {
+        Document isObject = new Document("$eq", Arrays.asList(new Document("$type", "$$this.v"), "object"));
+        Document isArray = new Document("$eq", Arrays.asList(new Document("$type", "$$this.v"), "array"));
+
+        // {a: {b: 1}} -> a.b
+        Document objectChildren = new Document("$map", new Document("input", new Document("$objectToArray", "$$this.v"))
+                .append("as", "c")
+                .append("in", new Document("p", new Document("$concat", Arrays.asList("$$this.p", ".", "$$c.k")))
+                        .append("v", "$$c.v")));
+
+        // {a: [{b: 1}, {b: 2}]} -> a[].b (once per element, as client-side analysis counts it)
+        Document documentElements = new Document("$filter", new Document("input", "$$this.v")
+                .append("as", "e")
+                .append("cond", new Document("$eq", Arrays.asList(new Document("$type", "$$e"), "object"))));
+        Document arrayChildren = new Document("$let", new Document("vars", new Document("parent", "$$this.p")
+                .append("elements", documentElements))
+                .append("in", new Document("$reduce", new Document("input", "$$elements")
+                        .append("initialValue", Collections.emptyList())
+                        .append("in", new Document("$concatArrays", Arrays.asList("$$value",
+                                new Document("$map", new Document("input", new Document("$objectToArray", "$$this"))
+                                        .append("as", "c")
+                                        .append("in", new Document("p",
+                                                new Document("$concat", Arrays.asList("$$parent", "[].", "$$c.k")))
+                                                .append("v", "$$c.v")))))))));
+
+        Document childrenOfPair = new Document("$switch", new Document("branches", Arrays.asList(
+                new Document("case", isObject).append("then", objectChildren),
+                new Document("case", isArray).append("then", arrayChildren)))
+                .append("default", Collections.emptyList()));
+
+        return new Document("$reduce", new Document("input", pairs)
+                .append("initialValue", Collections.emptyList())
+                .append("in", new Document("$concatArrays", Arrays.asList("$$value", childrenOfPair))));
+    }
+
+    /**
+     * Number of documents the pipeline analyzed
+     */
+    public static int documentCount(Document facetResult) {
+        List<Document> docs = facetResult.getList("docs", Document.class, Collections.emptyList());
+        return docs.isEmpty() ? 0 : ((Number) docs.get(0).get("n")).intValue();
+    }
+
+    /**
+     * Folds (path, type, count) tuples into one FieldInfo per path
+     */
+    public static Map<String, MongoSamplerService.FieldInfo> toFieldStats(Document facetResult) {
+        Map<String, Map<String, Integer>> typeCountsByPath = countsByPath(facetResult, "fields");
+        // Arrays of documents are described by their element paths instead
+        Map<String, Map<String, Integer>> elementTypeCountsByPath = countsByPath(facetResult, "elements");
+        elementTypeCountsByPath.values().forEach(counts -> counts.remove("object"));
+
+        Map<String, MongoSamplerService.FieldInfo> fieldStats = new HashMap<>();
+        for (Map.Entry<String, Map<String, Integer>> entry : typeCountsByPath.entrySet()) {
+            Map<String, Integer> typeCounts = entry.getValue();
+            int count = typeCounts.values().stream().mapToInt(Integer::intValue).sum();
+            MongoSamplerService.FieldInfo info = new MongoSamplerService.FieldInfo(
+                    entry.getKey(), count, typeCounts,
+                    typeCounts.containsKey("array"),
+                    typeCounts.containsKey("object"),
+                    null);
+            Map<String, Integer> elementTypeCounts = elementTypeCountsByPath.get(entry.getKey());
+            if (elementTypeCounts != null && !elementTypeCounts.isEmpty()) {
+                info.setElementTypeCounts(elementTypeCounts);
+            }
+            fieldStats.put(entry.getKey(), info);
+        }
+        return fieldStats;
+    }
+
+    private static Map<String, Map<String, Integer>> countsByPath(Document facetResult, String facet) {
+        Map<String, Map<String, Integer>> countsByPath = new HashMap<>();
+        for (Document tuple : facetResult.getList(facet, Document.class, Collections.emptyList())) {
+            Document key = tuple.get("_id", Document.class);
+            String type = TYPE_NAMES.getOrDefault(key.getString("t"), "unknown");
+            int count = ((Number) tuple.get("n")).intValue();
+            countsByPath.computeIfAbsent(key.getString("p"), p -> new HashMap<>())
+                    .merge(type, count, Integer::sum);
+        }
+        return countsByPath;
+    }
+}
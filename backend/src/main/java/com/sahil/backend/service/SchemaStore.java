@@ -0,0 +1,245 @@
+package com.sahil.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sahil.backend.config.MongoAnalysisConfig;
+import com.sahil.backend.model.CollectionSchema;
+import com.sahil.backend.model.MongoSchemaField;
+import com.sahil.backend.repository.CollectionSchemaRepository;
+import com.sahil.backend.repository.MongoSchemaFieldRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Storage of analyzed schemas as one compact document per collection
+ * A schema is read in a single query and kept as a SchemaView; fields are only decoded
+ * from the documents when a collection is first asked for. Per-field mongo_schema_fields
+ * rows are still written (unless disabled) as a queryable secondary form, and are read
+ * back for schemas analyzed before compact documents existed.
+ *
+ * Each schema has a generation, advanced when a collection write completes. A view records
+ * the generation read before its query and is only served while that generation is current,
+ * so a view loaded concurrently with a write is never kept.
+ */
+@Service
+public class SchemaStore {
+
+    @Autowired
+    private CollectionSchemaRepository collectionSchemaRepository;
+
+    @Autowired
+    private MongoSchemaFieldRepository mongoSchemaFieldRepository;
+
+    @Autowired
+    private AnalysisResultWriter analysisResultWriter;
+
+    @Autowired
+    private MongoAnalysisConfig analysisConfig;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Generation per schema, advanced after every collection write commits
+    private final Map<UUID, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    // Most recently used schema views
+    private final Map<UUID, SchemaView> views = Collections.synchronizedMap(
+            new LinkedHashMap<UUID, SchemaView>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<UUID, SchemaView> eldest) {
+                    return size() > analysisConfig.getSchemaViewCacheSize();
+                }
+            });
+
+    /**
+     * Stores one collection's fields, replacing a previous document for the same collection;
+     * the document and the per-field rows commit together
+     */
+    @Transactional
+    public List<MongoSchemaField> saveCollection(UUID schemaId, String collectionName, List<MongoSchemaField> fields) {
+        ArrayNode fieldsJson = objectMapper.createArrayNode();
+        for (MongoSchemaField field : fields) {
+            fieldsJson.add(toJson(field));
+        }
+
+        CollectionSchema document = collectionSchemaRepository
+                .findBySchemaIdAndCollectionName(schemaId, collectionName)
+                .orElseGet(() -> new CollectionSchema(schemaId, collectionName, fieldsJson));
+        document.setFields(fieldsJson);
+        document.setFieldCount(fieldsJson.size());
+        collectionSchemaRepository.save(document);
+
+        List<MongoSchemaField> saved = analysisConfig.isWriteFieldRows()
+                ? analysisResultWriter.insertAll(fields)
+                : fields;
+
+        // Views loaded before the commit must not be served after it
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                generation(schemaId).incrementAndGet();
+                views.remove(schemaId);
+            }
+        });
+        return saved;
+    }
+
+    /**
+     * All fields of a schema (shared instances; callers must not modify them)
+     */
+    public List<MongoSchemaField> getFields(UUID schemaId) {
+        return getView(schemaId).getFields();
+    }
+
+    public List<MongoSchemaField> getCollectionFields(UUID schemaId, String collectionName) {
+        return getView(schemaId).getCollectionFields(collectionName);
+    }
+
+    public SchemaView getView(UUID schemaId) {
+        AtomicLong generation = generation(schemaId);
+        SchemaView view = views.get(schemaId);
+        if (view != null && view.generation == generation.get()) {
+            return view;
+        }
+
+        // Loaded outside the lock; only cached if no write completed in the meantime
+        long loadedGeneration = generation.get();
+        SchemaView loaded = loadView(schemaId, loadedGeneration);
+        views.compute(schemaId, (id, cached) -> {
+            if (generation.get() != loadedGeneration) {
+                return cached != null && cached.generation == generation.get() ? cached : null;
+            }
+            return cached != null && cached.generation == loadedGeneration ? cached : loaded;
+        });
+        return loaded;
+    }
+
+    private AtomicLong generation(UUID schemaId) {
+        return generations.computeIfAbsent(schemaId, id -> new AtomicLong());
+    }
+
+    private SchemaView loadView(UUID schemaId, long generation) {
+        Map<String, CollectionSchema> documents = new LinkedHashMap<>();
+        for (CollectionSchema document : collectionSchemaRepository.findBySchemaId(schemaId)) {
+            documents.put(document.getCollectionName(), document);
+        }
+        if (!documents.isEmpty()) {
+            return new SchemaView(schemaId, generation, documents, null);
+        }
+
+        // Schemas analyzed before compact documents were written
+        Map<String, List<MongoSchemaField>> fieldsByCollection = new LinkedHashMap<>();
+        for (MongoSchemaField field : mongoSchemaFieldRepository.findBySchemaId(schemaId)) {
+            fieldsByCollection.computeIfAbsent(field.getCollectionName(), k -> new ArrayList<>()).add(field);
+        }
+        return new SchemaView(schemaId, generation, Collections.emptyMap(), fieldsByCollection);
+    }
+
+    private ObjectNode toJson(MongoSchemaField field) {
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("name", field.getFieldName());
+        json.put("path", field.getFieldPath());
+        json.set("types", field.getDataTypes());
+        json.set("typeCounts", field.getTypeCounts());
+        json.set("elementTypeCounts", field.getElementTypeCounts());
+        json.put("frequency", field.getFrequency());
+        json.put("required", field.getIsRequired());
+        json.put("array", field.getIsArray());
+        json.set("nestedSchema", field.getNestedSchema());
+        json.set("statistics", field.getStatistics());
+        return json;
+    }
+
+    private static MongoSchemaField fromJson(UUID schemaId, String collectionName, JsonNode json) {
+        MongoSchemaField field = new MongoSchemaField(
+                schemaId,
+                collectionName,
+                json.path("name").asText(),
+                json.path("path").asText(),
+                nullIfMissing(json.get("types")),
+                json.path("frequency").asDouble(),
+                json.path("required").asBoolean(),
+                json.path("array").asBoolean());
+        field.setTypeCounts(nullIfMissing(json.get("typeCounts")));
+        field.setElementTypeCounts(nullIfMissing(json.get("elementTypeCounts")));
+        field.setNestedSchema(nullIfMissing(json.get("nestedSchema")));
+        field.setStatistics(nullIfMissing(json.get("statistics")));
+        return field;
+    }
+
+    private static JsonNode nullIfMissing(JsonNode node) {
+        return node == null || node.isNull() ? null : node;
+    }
+
+    /**
+     * In-memory view of one schema; each collection's fields are decoded on first access
+     */
+    public static final class SchemaView {
+        private final UUID schemaId;
+        private final long generation; // Schema generation the documents were read at
+        private final Map<String, CollectionSchema> documents;
+        private final Map<String, List<MongoSchemaField>> decoded = new ConcurrentHashMap<>();
+        private volatile List<MongoSchemaField> allFields;
+
+        SchemaView(UUID schemaId, long generation, Map<String, CollectionSchema> documents,
+                Map<String, List<MongoSchemaField>> fieldsByCollection) {
+            this.schemaId = schemaId;
+            this.generation = generation;
+            this.documents = documents;
+            if (fieldsByCollection != null) {
+                fieldsByCollection.forEach((collection, fields) ->
+                        decoded.put(collection, Collections.unmodifiableList(fields)));
+            }
+        }
+
+        public Set<String> getCollectionNames() {
+            return documents.isEmpty() ? decoded.keySet() : documents.keySet();
+        }
+
+        /**
+         * Number of fields, from the documents' counts without decoding them
+         */
+        public int getFieldCount() {
+            if (documents.isEmpty()) {
+                return decoded.values().stream().mapToInt(List::size).sum();
+            }
+            return documents.values().stream().mapToInt(CollectionSchema::getFieldCount).sum();
+        }
+
+        public List<MongoSchemaField> getCollectionFields(String collectionName) {
+            CollectionSchema document = documents.get(collectionName);
+            if (document == null) {
+                return decoded.getOrDefault(collectionName, Collections.emptyList());
+            }
+            return decoded.computeIfAbsent(collectionName, name -> {
+                List<MongoSchemaField> fields = new ArrayList<>(document.getFieldCount());
+                for (JsonNode json : document.getFields()) {
+                    fields.add(fromJson(schemaId, name, json));
+                }
+                return Collections.unmodifiableList(fields);
+            });
+        }
+
+        public List<MongoSchemaField> getFields() {
+            List<MongoSchemaField> fields = allFields;
+            if (fields == null) {
+                List<MongoSchemaField> all = new ArrayList<>();
+                for (String collectionName : getCollectionNames()) {
+                    all.addAll(getCollectionFields(collectionName));
+                }
+                fields = Collections.unmodifiableList(all);
+                allFields = fields;
+            }
+            return fields;
+        }
+    }
+}
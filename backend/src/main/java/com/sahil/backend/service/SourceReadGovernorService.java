@@ -0,0 +1,233 @@
+package com.sahil.backend.service;
+
+import com.mongodb.client.MongoDatabase;
+import com.sahil.backend.config.MigrationConfig;
+import com.sahil.backend.service.worker.SourceRateLimiter;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Governs read rates against source clusters
+ * Keeps one shared rate limiter per cluster, maps runs to clusters for the
+ * live throttle API, and optionally backs off when serverStatus read latency is high
+ */
+@Service
+public class SourceReadGovernorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SourceReadGovernorService.class);
+
+    // Auto throttle never drops a cluster below this many docs/sec
+    private static final double MIN_AUTO_DOCS_PER_SECOND = 100;
+
+    @Autowired
+    private MigrationConfig config;
+
+    private final Map<String, ClusterState> clusters = new ConcurrentHashMap<>();
+    private final Map<UUID, String> runClusters = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService latencyPoller;
+
+    /**
+     * Registers a run against a source cluster and returns the cluster's shared limiter.
+     * The run is added inside compute(), so a concurrent unregisterRun of the cluster's
+     * last run cannot drop the state this run joined.
+     */
+    public SourceRateLimiter registerRun(UUID runId, String clusterKey, MongoDatabase adminDb) {
+        runClusters.put(runId, clusterKey);
+        ClusterState state = clusters.compute(clusterKey, (key, existing) -> {
+            ClusterState joined = existing != null ? existing : new ClusterState(
+                    new SourceRateLimiter(key, config.getSourceMaxDocsPerSecond(), config.getSourceMaxBytesPerSecond()),
+                    config.isSourceAutoThrottle());
+            joined.activeRuns.put(runId, adminDb);
+            return joined;
+        });
+
+        if (state.autoThrottle) {
+            startLatencyPoller();
+        }
+
+        logger.info("Run {} registered with source read governor for cluster {}", runId, clusterKey);
+        return state.limiter;
+    }
+
+    /**
+     * Releases a finished run; the cluster limiter is dropped once no run uses it
+     */
+    public void unregisterRun(UUID runId) {
+        String clusterKey = runClusters.remove(runId);
+        if (clusterKey == null) {
+            return;
+        }
+        clusters.computeIfPresent(clusterKey, (key, state) -> {
+            state.activeRuns.remove(runId);
+            return state.activeRuns.isEmpty() ? null : state;
+        });
+    }
+
+    /**
+     * Returns the cluster state for a run, or null if the run is not active
+     */
+    public ClusterState getRunThrottle(UUID runId) {
+        String clusterKey = runClusters.get(runId);
+        return clusterKey != null ? clusters.get(clusterKey) : null;
+    }
+
+    /**
+     * Changes the limits of the run's source cluster without restarting the run.
+     * Null arguments leave the current value unchanged.
+     */
+    public ClusterState updateRunThrottle(UUID runId, Double docsPerSecond, Double bytesPerSecond,
+            Boolean autoThrottle) {
+        ClusterState state = getRunThrottle(runId);
+        if (state == null) {
+            return null;
+        }
+
+        SourceRateLimiter limiter = state.limiter;
+        limiter.setLimits(
+                docsPerSecond != null ? docsPerSecond : limiter.getDocsPerSecond(),
+                bytesPerSecond != null ? bytesPerSecond : limiter.getBytesPerSecond());
+
+        if (autoThrottle != null) {
+            state.autoThrottle = autoThrottle;
+            if (autoThrottle) {
+                startLatencyPoller();
+            } else {
+                limiter.setAutoDocsCeiling(0);
+            }
+        }
+
+        logger.info("Throttle updated for cluster {}: docs/sec={}, bytes/sec={}, auto={}",
+                limiter.getClusterKey(), limiter.getDocsPerSecond(), limiter.getBytesPerSecond(),
+                state.autoThrottle);
+        return state;
+    }
+
+    private synchronized void startLatencyPoller() {
+        if (latencyPoller != null) {
+            return;
+        }
+        latencyPoller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "source-latency-poller");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = config.getSourceLatencyPollIntervalMs();
+        latencyPoller.scheduleWithFixedDelay(this::pollLatencies, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void pollLatencies() {
+        for (ClusterState state : clusters.values()) {
+            if (!state.autoThrottle || state.adminDb() == null) {
+                continue;
+            }
+            try {
+                adjustForLatency(state);
+            } catch (Exception e) {
+                logger.warn("Failed to read serverStatus for cluster {}", state.limiter.getClusterKey(), e);
+            }
+        }
+    }
+
+    /**
+     * Reads opLatencies.reads from serverStatus and adjusts the cluster's auto ceiling.
+     * The counters are cumulative, so the average is taken over the poll interval.
+     */
+    private void adjustForLatency(ClusterState state) {
+        Document status = state.adminDb().runCommand(new Document("serverStatus", 1)
+                .append("opLatencies", new Document("histograms", false)));
+        Document reads = status.get("opLatencies", Document.class).get("reads", Document.class);
+        long latencyMicros = ((Number) reads.get("latency")).longValue();
+        long ops = ((Number) reads.get("ops")).longValue();
+        long now = System.nanoTime();
+        long documents = state.limiter.getDocumentsAcquired();
+
+        if (state.lastPollNanos > 0 && ops > state.lastOps) {
+            double avgLatencyMs = (latencyMicros - state.lastLatencyMicros) / 1000.0 / (ops - state.lastOps);
+            double elapsedSec = (now - state.lastPollNanos) / 1_000_000_000.0;
+            double observedDocsPerSecond = (documents - state.lastDocuments) / elapsedSec;
+            state.sourceReadLatencyMs = avgLatencyMs;
+
+            SourceRateLimiter limiter = state.limiter;
+            double ceiling = limiter.getAutoDocsCeiling();
+            double threshold = config.getSourceLatencyThresholdMs();
+
+            if (avgLatencyMs > threshold) {
+                // Back off from the current ceiling, or from what we are actually reading
+                double base = ceiling > 0 ? ceiling : observedDocsPerSecond;
+                double next = Math.max(MIN_AUTO_DOCS_PER_SECOND, base * 0.5);
+                limiter.setAutoDocsCeiling(next);
+                logger.info("Source cluster {} read latency {} ms above {} ms, throttling to {} docs/sec",
+                        limiter.getClusterKey(), String.format("%.2f", avgLatencyMs), threshold,
+                        String.format("%.0f", next));
+            } else if (ceiling > 0 && avgLatencyMs < threshold / 2) {
+                // Recover gradually; lift the ceiling once it no longer constrains reads
+                double next = ceiling * 1.25;
+                limiter.setAutoDocsCeiling(next > observedDocsPerSecond * 2 ? 0 : next);
+            }
+        }
+
+        state.lastPollNanos = now;
+        state.lastLatencyMicros = latencyMicros;
+        state.lastOps = ops;
+        state.lastDocuments = documents;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (latencyPoller != null) {
+            latencyPoller.shutdownNow();
+        }
+    }
+
+    /**
+     * Per-cluster governor state
+     */
+    public static class ClusterState {
+        private final SourceRateLimiter limiter;
+        // Admin database of each active run; clients close with their run, so polls use a live one
+        private final Map<UUID, MongoDatabase> activeRuns = new ConcurrentHashMap<>();
+        private volatile boolean autoThrottle;
+        private volatile double sourceReadLatencyMs = -1;
+
+        // Previous serverStatus sample (poller thread only)
+        private long lastPollNanos;
+        private long lastLatencyMicros;
+        private long lastOps;
+        private long lastDocuments;
+
+        ClusterState(SourceRateLimiter limiter, boolean autoThrottle) {
+            this.limiter = limiter;
+            this.autoThrottle = autoThrottle;
+        }
+
+        MongoDatabase adminDb() {
+            Iterator<MongoDatabase> live = activeRuns.values().iterator();
+            return live.hasNext() ? live.next() : null;
+        }
+
+        public SourceRateLimiter getLimiter() {
+            return limiter;
+        }
+
+        public boolean isAutoThrottle() {
+            return autoThrottle;
+        }
+
+        public double getSourceReadLatencyMs() {
+            return sourceReadLatencyMs;
+        }
+    }
+}
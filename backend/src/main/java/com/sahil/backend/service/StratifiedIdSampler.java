@@ -0,0 +1,122 @@
+package com.sahil.backend.service;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Samples a collection by _id range instead of $sample
+ * The range between the lowest and highest _id is split into strata and each stratum is
+ * read with a few random seeks ($gte on the _id index plus a small limit), so cost is
+ * bounded by the sample size and, with ObjectIds being time-ordered, the sample spreads
+ * over the collection's whole history. Supports ObjectId and integer _ids.
+ */
+public class StratifiedIdSampler {
+
+    private final int strata;
+    private final int sliceSize; // Documents read per seek
+
+    public StratifiedIdSampler(int strata, int sliceSize) {
+        this.strata = Math.max(1, strata);
+        this.sliceSize = Math.max(1, sliceSize);
+    }
+
+    /**
+     * Streams up to sampleSize documents into the sink; returns false without reading
+     * any document when the _id range cannot be stratified
+     */
+    public boolean sample(MongoCollection<Document> collection, int sampleSize, Consumer<Document> sink) {
+        IdRange range = IdRange.of(boundaryId(collection, 1), boundaryId(collection, -1));
+        if (range == null) {
+            return false;
+        }
+
+        Set<Object> seen = new HashSet<>();
+        int sampled = 0;
+        for (int s = 0; s < strata && sampled < sampleSize; s++) {
+            long lower = range.at((double) s / strata);
+            long upper = s == strata - 1 ? range.end : range.at((double) (s + 1) / strata);
+
+            // Shortfall of sparse strata carries over to the following ones
+            int quota = (sampleSize - sampled + (strata - s) - 1) / (strata - s);
+            int maxSeeks = 2 * ((quota + sliceSize - 1) / sliceSize) + 1;
+            int taken = 0;
+
+            for (int seek = 0; seek < maxSeeks && taken < quota; seek++) {
+                long point = upper > lower ? ThreadLocalRandom.current().nextLong(lower, upper) : lower;
+                Document idFilter = new Document("$gte", range.toId(point));
+                if (s < strata - 1) {
+                    idFilter.append("$lt", range.toId(upper));
+                }
+
+                try (MongoCursor<Document> cursor = collection.find(new Document("_id", idFilter))
+                        .sort(new Document("_id", 1))
+                        .limit(Math.min(sliceSize, quota - taken))
+                        .iterator()) {
+                    while (cursor.hasNext()) {
+                        Document doc = cursor.next();
+                        if (seen.add(doc.get("_id"))) {
+                            sink.accept(doc);
+                            taken++;
+                        }
+                    }
+                }
+            }
+            sampled += taken;
+        }
+        return true;
+    }
+
+    private Object boundaryId(MongoCollection<Document> collection, int direction) {
+        Document doc = collection.find()
+                .projection(new Document("_id", 1))
+                .sort(new Document("_id", direction))
+                .limit(1)
+                .first();
+        return doc != null ? doc.get("_id") : null;
+    }
+
+    /**
+     * _id range mapped onto longs: seconds for ObjectIds, the value itself for integers
+     */
+    private static final class IdRange {
+        private final long start;
+        private final long end;
+        private final boolean objectIds;
+
+        private IdRange(long start, long end, boolean objectIds) {
+            this.start = start;
+            this.end = end;
+            this.objectIds = objectIds;
+        }
+
+        static IdRange of(Object min, Object max) {
+            if (min instanceof ObjectId && max instanceof ObjectId) {
+                return new IdRange(Integer.toUnsignedLong(((ObjectId) min).getTimestamp()),
+                        Integer.toUnsignedLong(((ObjectId) max).getTimestamp()), true);
+            }
+            if ((min instanceof Integer || min instanceof Long) && (max instanceof Integer || max instanceof Long)) {
+                return new IdRange(((Number) min).longValue(), ((Number) max).longValue(), false);
+            }
+            return null;
+        }
+
+        long at(double fraction) {
+            return start + (long) (((double) end - start) * fraction);
+        }
+
+        Object toId(long value) {
+            if (objectIds) {
+                // Lowest ObjectId created in that second
+                return new ObjectId(String.format("%08x", value) + "0000000000000000");
+            }
+            return value;
+        }
+    }
+}
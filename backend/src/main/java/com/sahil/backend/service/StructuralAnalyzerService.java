@@ -4,8 +4,8 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sahil.backend.config.MongoAnalysisConfig;
 import com.sahil.backend.model.MongoSchemaField;
-import com.sahil.backend.repository.MongoSchemaFieldRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -18,7 +18,27 @@ public class StructuralAnalyzerService {
     private ObjectMapper objectMapper;
 
     @Autowired
-    private MongoSchemaFieldRepository mongoSchemaFieldRepository;
+    private MongoAnalysisConfig analysisConfig;
+
+    @Autowired
+    private SchemaStore schemaStore;
+
+    // Candidate column types, narrowest first, with the BSON types each can hold
+    private static final String[][] TYPE_CANDIDATES = {
+            { "BOOLEAN", "boolean" },
+            { "INTEGER", "int32" },
+            { "BIGINT", "int32", "int64" },
+            { "DOUBLE PRECISION", "int32", "int64", "double" },
+            { "TIMESTAMP", "date" },
+            { "TEXT", "string" }, // Never sized from samples; the observed max length goes in the plan
+            { "TEXT", "objectId" }, // ObjectId as hex string
+            { "TEXT", "string", "objectId", "int32", "int64", "double", "boolean", "date" },
+            { "JSONB", "object", "array" },
+    };
+
+    // Fields with at most this many distinct values, or this distinct/value ratio, are not indexed
+    private static final int LOW_CARDINALITY_DISTINCT = 2;
+    private static final double LOW_CARDINALITY_RATIO = 0.01;
 
     /**
      * Analyzes collection structure and saves to database
@@ -41,10 +61,14 @@ public class StructuralAnalyzerService {
                 double frequency = info.getFrequency(totalSamples);
                 boolean isRequired = frequency > 0.95; // Consider required if present in >95% of docs
 
-                // Convert data types to JSON array
+                // Convert data types to JSON array, most frequent first
                 ArrayNode dataTypesJson = objectMapper.createArrayNode();
-                for (String type : info.getDataTypes()) {
-                    dataTypesJson.add(type);
+                ObjectNode typeCountsJson = objectMapper.createObjectNode();
+                List<Map.Entry<String, Integer>> typeCounts = new ArrayList<>(info.getTypeCounts().entrySet());
+                typeCounts.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+                for (Map.Entry<String, Integer> typeCount : typeCounts) {
+                    dataTypesJson.add(typeCount.getKey());
+                    typeCountsJson.put(typeCount.getKey(), typeCount.getValue());
                 }
 
                 MongoSchemaField field = new MongoSchemaField(
@@ -57,12 +81,22 @@ public class StructuralAnalyzerService {
                         isRequired,
                         info.isArray());
 
+                field.setTypeCounts(typeCountsJson);
+
+                if (!info.getElementTypeCounts().isEmpty()) {
+                    field.setElementTypeCounts(objectMapper.valueToTree(info.getElementTypeCounts()));
+                }
+
+                if (info.getSketch() != null) {
+                    field.setStatistics(info.getSketch().toJson(objectMapper));
+                }
+
                 schemaFields.add(field);
             }
         }
 
-        // Save to database
-        return mongoSchemaFieldRepository.saveAll(schemaFields);
+        // Save to database as the collection's schema document
+        return schemaStore.saveCollection(schemaId, collectionName, schemaFields);
     }
 
     /**
@@ -77,6 +111,11 @@ public class StructuralAnalyzerService {
      * Suggests SQL data type based on MongoDB types
      */
     public String suggestSqlType(MongoSchemaField field) {
+        TypeSelection selection = selectColumnType(field);
+        if (selection != null) {
+            return selection.getSqlType();
+        }
+
         JsonNode dataTypes = field.getDataTypes();
         if (dataTypes == null || dataTypes.size() == 0) {
             return "TEXT";
@@ -87,7 +126,7 @@ public class StructuralAnalyzerService {
 
         switch (primaryType) {
             case "string":
-                return "VARCHAR(255)";
+                return "TEXT"; // Unsampled values may be longer than any VARCHAR(n) sized from samples
             case "int32":
                 return "INTEGER";
             case "int64":
@@ -109,6 +148,114 @@ public class StructuralAnalyzerService {
         }
     }
 
+    /**
+     * Picks the narrowest column type whose accepted BSON types cover at least the
+     * configured share of the field's non-null values. Returns null for fields analyzed
+     * before per-type counts were recorded.
+     */
+    public TypeSelection selectColumnType(MongoSchemaField field) {
+        JsonNode typeCounts = field.getTypeCounts();
+        if (typeCounts == null || typeCounts.size() == 0) {
+            return null;
+        }
+
+        long total = 0;
+        Iterator<Map.Entry<String, JsonNode>> counts = typeCounts.fields();
+        while (counts.hasNext()) {
+            Map.Entry<String, JsonNode> entry = counts.next();
+            if (!"null".equals(entry.getKey())) {
+                total += entry.getValue().asLong();
+            }
+        }
+        if (total == 0) {
+            return new TypeSelection("TEXT", Collections.emptySet(), 1.0);
+        }
+
+        Set<String> observed = new LinkedHashSet<>();
+        typeCounts.fieldNames().forEachRemaining(observed::add);
+        observed.remove("null");
+
+        // Arrays are always stored whole, together with any non-array values
+        if (Boolean.TRUE.equals(field.getIsArray())) {
+            return new TypeSelection("JSONB", observed, 1.0);
+        }
+
+        double requiredShare = analysisConfig.getDominantTypeShare();
+        for (String[] candidate : TYPE_CANDIDATES) {
+            Set<String> accepted = new LinkedHashSet<>(Arrays.asList(candidate).subList(1, candidate.length));
+            long covered = 0;
+            for (String type : accepted) {
+                covered += typeCounts.path(type).asLong(0);
+            }
+
+            double share = (double) covered / total;
+            if (share >= requiredShare && covered > 0) {
+                return new TypeSelection(candidate[0], accepted, share);
+            }
+        }
+
+        // No single type is dominant enough: keep every value as JSON
+        return new TypeSelection("JSONB", observed, 1.0);
+    }
+
+    /**
+     * Column type chosen for a field and the BSON types it stores directly;
+     * values of other types go to the field's outlier column
+     */
+    public static class TypeSelection {
+        private final String sqlType;
+        private final Set<String> acceptedTypes;
+        private final double coveredShare;
+
+        public TypeSelection(String sqlType, Set<String> acceptedTypes, double coveredShare) {
+            this.sqlType = sqlType;
+            this.acceptedTypes = acceptedTypes;
+            this.coveredShare = coveredShare;
+        }
+
+        public String getSqlType() {
+            return sqlType;
+        }
+
+        public Set<String> getAcceptedTypes() {
+            return acceptedTypes;
+        }
+
+        public double getCoveredShare() {
+            return coveredShare;
+        }
+
+        public boolean hasOutliers() {
+            return coveredShare < 1.0;
+        }
+    }
+
+    /**
+     * Longest string value seen in the sample, or null without string statistics.
+     * Only a lower bound for the collection, so it is reported rather than used to size columns.
+     */
+    public Integer observedMaxLength(MongoSchemaField field) {
+        JsonNode lengths = field.getStatistics() != null ? field.getStatistics().get("stringLength") : null;
+        if (lengths == null || !lengths.has("max")) {
+            return null;
+        }
+        return lengths.get("max").asInt();
+    }
+
+    /**
+     * Whether sampled values are too repetitive for a B-tree index to be selective
+     */
+    public boolean isLowCardinality(MongoSchemaField field) {
+        JsonNode stats = field.getStatistics();
+        if (stats == null || !stats.has("distinctCount") || !stats.has("valueCount")) {
+            return false;
+        }
+        long distinct = stats.get("distinctCount").asLong();
+        long values = stats.get("valueCount").asLong();
+        return values > 0 && (distinct <= LOW_CARDINALITY_DISTINCT
+                || (double) distinct / values < LOW_CARDINALITY_RATIO);
+    }
+
     /**
      * Extracts field name from field path
      */
@@ -136,14 +283,24 @@ public class StructuralAnalyzerService {
                     fieldSchema.put("type", field.getDataTypes().get(0).asText());
                 } else {
                     fieldSchema.set("types", field.getDataTypes());
+                    if (field.getTypeCounts() != null) {
+                        fieldSchema.set("typeCounts", field.getTypeCounts());
+                    }
                 }
             }
 
             fieldSchema.put("frequency", field.getFrequency());
             fieldSchema.put("required", field.getIsRequired());
 
+            if (field.getStatistics() != null) {
+                fieldSchema.set("statistics", field.getStatistics());
+            }
+
             if (field.getIsArray()) {
                 fieldSchema.put("isArray", true);
+                if (field.getElementTypeCounts() != null) {
+                    fieldSchema.set("elementTypes", field.getElementTypeCounts());
+                }
             }
 
             properties.set(field.getFieldName(), fieldSchema);
@@ -0,0 +1,181 @@
+package com.sahil.backend.service.worker;
+
+import com.sahil.backend.model.DocumentBatch;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Ledger of committed batches kept in the target database
+ * Each batch's ledger row is inserted in the same transaction as its rows, so a batch
+ * whose commit succeeded but whose acknowledgment was lost is skipped on retry.
+ * Full copies read in _id order and batches are keyed by their first and last _id, so a
+ * run started after a failed one meets the same ranges and skips those already committed.
+ * Entries are kept per migration and run type (full copy or sync pass) and cleared once
+ * a run of that type completes without failed batches.
+ */
+public class BatchLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchLedger.class);
+
+    // Earlier ledger tables keyed batches by run and by cursor offset, which a resumed run could not match
+    public static final String LEDGER_TABLE = "_migration_batch_ledger_v3";
+
+    private static final String CREATE_SQL = "CREATE TABLE IF NOT EXISTS " + LEDGER_TABLE + " ("
+            + "migration_id UUID NOT NULL, "
+            + "run_type TEXT NOT NULL, "
+            + "table_name TEXT NOT NULL, "
+            + "first_id TEXT NOT NULL, "
+            + "last_id TEXT NOT NULL, "
+            + "document_count INTEGER NOT NULL, "
+            + "checksum TEXT NOT NULL, "
+            + "run_id UUID NOT NULL, "
+            + "committed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+            + "PRIMARY KEY (migration_id, run_type, table_name, first_id, last_id))";
+
+    private static final String CLAIM_SQL = "INSERT INTO " + LEDGER_TABLE
+            + " (migration_id, run_type, table_name, first_id, last_id, document_count, checksum, run_id)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private static final String CHECKSUM_SQL = "SELECT checksum FROM " + LEDGER_TABLE
+            + " WHERE migration_id = ? AND run_type = ? AND table_name = ? AND first_id = ? AND last_id = ?";
+
+    private static final String RECLAIM_SQL = "UPDATE " + LEDGER_TABLE
+            + " SET document_count = ?, checksum = ?, run_id = ?, committed_at = CURRENT_TIMESTAMP"
+            + " WHERE migration_id = ? AND run_type = ? AND table_name = ? AND first_id = ? AND last_id = ?";
+
+    private static final String EARLIER_BATCH_SIZE_SQL = "SELECT COALESCE(MAX(document_count), 0) FROM "
+            + LEDGER_TABLE + " WHERE migration_id = ? AND run_type = ? AND table_name = ? AND run_id <> ?";
+
+    private static final String CLEAR_SQL = "DELETE FROM " + LEDGER_TABLE
+            + " WHERE migration_id = ? AND run_type = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UUID migrationId;
+    private final String runType; // FULL or SYNC
+    private final UUID runId;
+
+    // Largest batch an earlier run of the same type committed per table, 0 if none
+    private final Map<String, Integer> earlierBatchSizes = new ConcurrentHashMap<>();
+
+    public BatchLedger(JdbcTemplate jdbcTemplate, UUID migrationId, String runType, UUID runId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+        this.migrationId = migrationId;
+        this.runType = runType;
+        this.runId = runId;
+    }
+
+    public void createLedgerTable() {
+        jdbcTemplate.execute(CREATE_SQL);
+    }
+
+    /**
+     * Batch size for a table: a run resuming one that committed batches of the table keeps
+     * that run's size, so its batches end on the same _ids and match the ledger's ranges
+     */
+    public int batchSizeFor(String tableName, int batchSize) {
+        int earlier = earlierBatchSize(tableName);
+        if (earlier > 0 && earlier != batchSize) {
+            logger.info("Resuming table {} with the earlier run's batch size {} (configured {})",
+                    tableName, earlier, batchSize);
+            return earlier;
+        }
+        return batchSize;
+    }
+
+    /**
+     * Runs the batch write and its ledger entry in one transaction.
+     * The ledger row is claimed first; if the range is already recorded with the same
+     * checksum, the batch was committed by an earlier attempt or run and is skipped.
+     * A batch that may share documents with committed rows (a range recorded with other
+     * documents, or any new range of a table an earlier run left partly loaded) is written
+     * with overlapWrite, which must leave rows already in the target untouched or update them.
+     *
+     * @return true if the batch was written, false if it had already been committed
+     */
+    public boolean writeOnce(String tableName, DocumentBatch batch, Runnable write, Runnable overlapWrite) {
+        List<Document> documents = batch.getDocuments();
+        String firstId = idKey(documents.get(0));
+        String lastId = idKey(documents.get(documents.size() - 1));
+        String checksum = checksum(documents);
+        boolean resumed = earlierBatchSize(tableName) > 0;
+
+        Boolean written = transactionTemplate.execute(status -> {
+            int claimed = jdbcTemplate.update(CLAIM_SQL, migrationId, runType, tableName, firstId, lastId,
+                    documents.size(), checksum, runId);
+            if (claimed == 1) {
+                (resumed ? overlapWrite : write).run();
+                return true;
+            }
+
+            String committedChecksum = jdbcTemplate.queryForObject(
+                    CHECKSUM_SQL, String.class, migrationId, runType, tableName, firstId, lastId);
+            if (checksum.equals(committedChecksum)) {
+                return false;
+            }
+            logger.warn("Range {}..{} of table {} was committed with other documents ({} vs {}), "
+                    + "writing the batch without duplicating committed rows",
+                    firstId, lastId, tableName, committedChecksum, checksum);
+            jdbcTemplate.update(RECLAIM_SQL, documents.size(), checksum, runId,
+                    migrationId, runType, tableName, firstId, lastId);
+            overlapWrite.run();
+            return true;
+        });
+
+        if (!Boolean.TRUE.equals(written)) {
+            logger.info("Range {}..{} of table {} already committed, skipping", firstId, lastId, tableName);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Drops the entries of this run type once a run has completed, so the next full copy
+     * or sync pass starts from an empty ledger; entries of the other type are kept
+     */
+    public void clear() {
+        int removed = jdbcTemplate.update(CLEAR_SQL, migrationId, runType);
+        logger.debug("Cleared {} {} batch ledger entries of migration {}", removed, runType, migrationId);
+    }
+
+    private int earlierBatchSize(String tableName) {
+        return earlierBatchSizes.computeIfAbsent(tableName, table -> {
+            Integer size = jdbcTemplate.queryForObject(
+                    EARLIER_BATCH_SIZE_SQL, Integer.class, migrationId, runType, table, runId);
+            return size != null ? size : 0;
+        });
+    }
+
+    /**
+     * A document's _id as Extended JSON, so ids of different BSON types never collide
+     */
+    public static String idKey(Document document) {
+        return new Document("v", document.get("_id")).toJson();
+    }
+
+    /**
+     * CRC32 over the batch's _id values, in cursor order
+     */
+    public static String checksum(List<Document> documents) {
+        CRC32 crc = new CRC32();
+        for (Document doc : documents) {
+            Object id = doc.get("_id");
+            crc.update(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        }
+        return Long.toHexString(crc.getValue());
+    }
+}
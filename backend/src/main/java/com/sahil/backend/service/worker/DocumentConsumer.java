@@ -6,10 +6,13 @@ import com.sahil.backend.model.DocumentBatch;
 import com.sahil.backend.model.MigrationMetrics;
 import com.sahil.backend.model.MigrationProgress;
 import com.sahil.backend.repository.MigrationProgressRepository;
+import com.sahil.backend.util.BsonTypes;
 import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -18,6 +21,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
 
 /**
  * Consumer that polls document batches from the queue and writes to PostgreSQL
@@ -38,6 +42,12 @@ public class DocumentConsumer implements Runnable {
     private final MigrationProgressRepository progressRepository;
     private final UUID progressId;
     private final int consumerId;
+    private final Semaphore writePermits; // Optional cap on concurrent JDBC writes (virtual threads)
+    private final TargetWriteGovernor writeGovernor; // Optional replication-lag throttle
+    private final BatchLedger batchLedger; // Optional exactly-once ledger in the target
+    private final String writeMode; // INSERT or UPSERT (ON CONFLICT on the primary key)
+    private final List<JoinTableWriter> joinTableWriters; // Reference arrays copied from the same batches
+    private final TransactionTemplate transactionTemplate; // Rows and join table copies commit together
 
     public DocumentConsumer(
             BlockingQueue<DocumentBatch> queue,
@@ -50,7 +60,12 @@ public class DocumentConsumer implements Runnable {
             long retryDelayMs,
             MigrationProgressRepository progressRepository,
             UUID progressId,
-            int consumerId) {
+            int consumerId,
+            Semaphore writePermits,
+            TargetWriteGovernor writeGovernor,
+            BatchLedger batchLedger,
+            String writeMode,
+            List<JoinTableWriter> joinTableWriters) {
         this.queue = queue;
         this.jdbcTemplate = jdbcTemplate;
         this.columnMapping = columnMapping;
@@ -62,6 +77,13 @@ public class DocumentConsumer implements Runnable {
         this.progressRepository = progressRepository;
         this.progressId = progressId;
         this.consumerId = consumerId;
+        this.writePermits = writePermits;
+        this.writeGovernor = writeGovernor;
+        this.batchLedger = batchLedger;
+        this.writeMode = writeMode;
+        this.joinTableWriters = joinTableWriters;
+        this.transactionTemplate = new TransactionTemplate(
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
     }
 
     @Override
@@ -72,6 +94,11 @@ public class DocumentConsumer implements Runnable {
 
         try {
             while (!Thread.currentThread().isInterrupted()) {
+                // Wait while the target's replicas are lagging
+                if (writeGovernor != null) {
+                    writeGovernor.awaitTurn(consumerId, queue);
+                }
+
                 DocumentBatch batch = queue.take();
 
                 // Check for poison pill (shutdown signal)
@@ -137,11 +164,27 @@ public class DocumentConsumer implements Runnable {
     }
 
     private void processBatch(DocumentBatch batch) {
-        String sql = buildInsertSql();
+        String sql = buildInsertSql(false);
         List<Object[]> args = transformDocuments(batch.getDocuments());
 
-        // Execute batch insert
-        jdbcTemplate.batchUpdate(sql, args);
+        // Execute batch insert; the permit is taken before the transaction opens a connection
+        acquireWritePermit();
+        try {
+            if (batchLedger != null) {
+                // Rows and ledger entry commit together; a retry of an already committed batch is skipped,
+                // and a batch overlapping rows committed by an earlier run skips those rows
+                String overlapSql = buildInsertSql(true);
+                batchLedger.writeOnce(targetTableName, batch,
+                        () -> writeRows(sql, args, batch, false),
+                        () -> writeRows(overlapSql, args, batch, true));
+            } else {
+                // Without the ledger the batch still commits as a unit, so a failed join table copy
+                // rolls back its rows and the retry starts clean
+                transactionTemplate.executeWithoutResult(status -> writeRows(sql, args, batch, false));
+            }
+        } finally {
+            releaseWritePermit();
+        }
 
         // Update metrics
         metrics.incrementConsumed(batch.size());
@@ -150,12 +193,52 @@ public class DocumentConsumer implements Runnable {
         updateProgress(batch.size());
     }
 
-    private String buildInsertSql() {
+    /**
+     * Takes a write permit when running on virtual threads. It is held for the whole batch
+     * transaction (ledger claim, rows, join table copies), so the number of target connections
+     * held by consumers, and of threads inside the JDBC driver (which may block while holding
+     * a monitor and pin its carrier), stays bounded by the target pool size.
+     */
+    private void acquireWritePermit() {
+        if (writePermits == null) {
+            return;
+        }
+        try {
+            writePermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a write permit", e);
+        }
+    }
+
+    private void releaseWritePermit() {
+        if (writePermits != null) {
+            writePermits.release();
+        }
+    }
+
+    private void writeRows(String sql, List<Object[]> args, DocumentBatch batch, boolean overlapping) {
+        jdbcTemplate.batchUpdate(sql, args);
+        for (JoinTableWriter joinTableWriter : joinTableWriters) {
+            if (overlapping) {
+                joinTableWriter.rewrite(batch.getDocuments());
+            } else {
+                joinTableWriter.write(batch.getDocuments());
+            }
+        }
+    }
+
+    /**
+     * @param skipConflicts in INSERT mode, leave rows whose key already exists untouched
+     *                      (batches overlapping rows committed by an earlier run)
+     */
+    String buildInsertSql(boolean skipConflicts) {
         StringBuilder sql = new StringBuilder("INSERT INTO ");
         sql.append(targetTableName).append(" (");
 
         List<String> cols = new ArrayList<>();
         List<String> placeholders = new ArrayList<>();
+        String primaryKeyColumn = null;
 
         // PostgreSQL reserved keywords that need quoting
         Set<String> reservedKeywords = new HashSet<>();
@@ -201,17 +284,22 @@ public class DocumentConsumer implements Runnable {
                         && col.get("requiresTransformation").asBoolean();
 
                 // Quote column name if it's a reserved keyword
-                if (reservedKeywords.contains(colName.toLowerCase())) {
-                    cols.add("\"" + colName + "\"");
-                } else {
-                    cols.add(colName);
+                String quotedName = reservedKeywords.contains(colName.toLowerCase())
+                        ? "\"" + colName + "\""
+                        : colName;
+                cols.add(quotedName);
+
+                if (col.has("primaryKey") && col.get("primaryKey").asBoolean()) {
+                    primaryKeyColumn = quotedName;
                 }
 
                 // For JSONB columns, cast the placeholder
                 // BUT: Don't cast ObjectId fields - they should be plain TEXT
                 // Skip: _id, userId, orderId, productId, etc.
                 boolean isObjectIdField = "_id".equals(sourceField) || sourceField.endsWith("Id");
-                if ((dataType.equalsIgnoreCase("JSONB") || requiresTransformation) && !isObjectIdField) {
+                if (col.has("outlierOf")) {
+                    placeholders.add("?::jsonb");
+                } else if ((dataType.equalsIgnoreCase("JSONB") || requiresTransformation) && !isObjectIdField) {
                     placeholders.add("?::jsonb");
                 } else {
                     placeholders.add("?");
@@ -224,6 +312,25 @@ public class DocumentConsumer implements Runnable {
         sql.append(String.join(", ", placeholders));
         sql.append(")");
 
+        // Upsert: re-running a load over a partially filled table updates existing rows
+        if ("UPSERT".equalsIgnoreCase(writeMode) && primaryKeyColumn != null) {
+            List<String> updates = new ArrayList<>();
+            for (String col : cols) {
+                if (!col.equals(primaryKeyColumn)) {
+                    updates.add(col + " = EXCLUDED." + col);
+                }
+            }
+
+            sql.append(" ON CONFLICT (").append(primaryKeyColumn).append(")");
+            if (updates.isEmpty()) {
+                sql.append(" DO NOTHING");
+            } else {
+                sql.append(" DO UPDATE SET ").append(String.join(", ", updates));
+            }
+        } else if (skipConflicts) {
+            sql.append(" ON CONFLICT DO NOTHING");
+        }
+
         return sql.toString();
     }
 
@@ -266,6 +373,18 @@ public class DocumentConsumer implements Runnable {
                     val = doc.get(sourceField);
                 }
 
+                // Values whose type the typed column doesn't hold go to its outlier column as JSON
+                if (colMap.has("acceptedTypes")) {
+                    boolean accepted = isAcceptedType(colMap.get("acceptedTypes"), val);
+                    if (colMap.has("outlierOf")) {
+                        values.add(accepted ? null : toOutlierJson(val));
+                        continue;
+                    }
+                    if (!accepted) {
+                        val = null;
+                    }
+                }
+
                 // Convert ObjectIds to strings before JSON serialization
                 if (val instanceof org.bson.types.ObjectId) {
                     String objectIdStr = ((org.bson.types.ObjectId) val).toString();
@@ -315,6 +434,27 @@ public class DocumentConsumer implements Runnable {
         return values.toArray();
     }
 
+    private boolean isAcceptedType(JsonNode acceptedTypes, Object val) {
+        if (val == null) {
+            return true;
+        }
+        String type = BsonTypes.name(val);
+        for (JsonNode acceptedType : acceptedTypes) {
+            if (type.equals(acceptedType.asText())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String toOutlierJson(Object val) {
+        try {
+            return objectMapper.writeValueAsString(convertObjectIdsInValue(val));
+        } catch (Exception e) {
+            return objectMapper.valueToTree(String.valueOf(val)).toString();
+        }
+    }
+
     private void updateProgress(int documentsProcessed) {
         try {
             MigrationProgress progress = progressRepository.findById(progressId).orElse(null);
@@ -1,7 +1,9 @@
 package com.sahil.backend.service.worker;
 
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Sorts;
 import com.sahil.backend.model.DocumentBatch;
 import com.sahil.backend.model.MigrationMetrics;
 import org.bson.Document;
@@ -11,6 +13,7 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
 
 /**
  * Producer that reads documents from MongoDB and pushes batches to the queue
@@ -27,6 +30,9 @@ public class DocumentProducer implements Runnable {
     private final int mongoFetchSize;
     private final String collectionName;
     private final String targetTableName;
+    private final SourceRateLimiter rateLimiter; // Shared per source cluster, may be null
+    private final WatermarkCursor watermark; // Incremental sync read spec, null for a full copy
+    private final Semaphore readPermits; // Optional cap on threads inside cursor reads (virtual threads)
 
     public DocumentProducer(
             MongoCollection<Document> collection,
@@ -35,7 +41,10 @@ public class DocumentProducer implements Runnable {
             int batchSize,
             int mongoFetchSize,
             String collectionName,
-            String targetTableName) {
+            String targetTableName,
+            SourceRateLimiter rateLimiter,
+            WatermarkCursor watermark,
+            Semaphore readPermits) {
         this.collection = collection;
         this.queue = queue;
         this.metrics = metrics;
@@ -43,6 +52,9 @@ public class DocumentProducer implements Runnable {
         this.mongoFetchSize = mongoFetchSize;
         this.collectionName = collectionName;
         this.targetTableName = targetTableName;
+        this.rateLimiter = rateLimiter;
+        this.watermark = watermark;
+        this.readPermits = readPermits;
     }
 
     @Override
@@ -51,28 +63,28 @@ public class DocumentProducer implements Runnable {
 
         MongoCursor<Document> cursor = null;
         try {
-            // Create cursor with batch size optimization
-            cursor = collection.find()
+            // Create cursor with batch size optimization; a full copy reads in _id order so
+            // batches of a resumed run cover the same ranges as the batch ledger's
+            FindIterable<Document> find = watermark != null
+                    ? collection.find(watermark.filter()).sort(watermark.sort())
+                    : collection.find().sort(Sorts.ascending("_id"));
+            cursor = find
                     .batchSize(mongoFetchSize)
                     .iterator();
 
-            List<Document> batch = new ArrayList<>(batchSize);
             int batchCount = 0;
 
-            while (cursor.hasNext() && !Thread.currentThread().isInterrupted()) {
-                Document doc = cursor.next();
-                batch.add(doc);
-
-                // When batch is full, push to queue
-                if (batch.size() >= batchSize) {
-                    pushBatch(batch, ++batchCount);
-                    batch = new ArrayList<>(batchSize);
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Document> batch = readBatch(cursor);
+                if (batch.isEmpty()) {
+                    break;
                 }
-            }
-
-            // Flush remaining documents
-            if (!batch.isEmpty()) {
                 pushBatch(batch, ++batchCount);
+
+                // A short batch means the cursor is exhausted
+                if (batch.size() < batchSize) {
+                    break;
+                }
             }
 
             logger.info("Producer completed for collection: {} (produced {} batches, {} documents)",
@@ -91,13 +103,43 @@ public class DocumentProducer implements Runnable {
         }
     }
 
+    /**
+     * Reads up to batchSize documents, holding a read permit when running on virtual threads.
+     * The permit is released before the batch is queued, so producers parked on a full queue
+     * do not count against the source connection pool.
+     */
+    private List<Document> readBatch(MongoCursor<Document> cursor) throws InterruptedException {
+        if (readPermits != null) {
+            readPermits.acquire();
+        }
+        try {
+            List<Document> batch = new ArrayList<>(batchSize);
+            while (batch.size() < batchSize && cursor.hasNext()) {
+                batch.add(cursor.next());
+            }
+            return batch;
+        } finally {
+            if (readPermits != null) {
+                readPermits.release();
+            }
+        }
+    }
+
     private void pushBatch(List<Document> batch, int batchNumber) throws InterruptedException {
+        if (rateLimiter != null) {
+            rateLimiter.acquire(batch.size(),
+                    rateLimiter.isByteLimited() ? SourceRateLimiter.estimateBytes(batch) : 0);
+        }
+
         DocumentBatch documentBatch = DocumentBatch.of(
                 new ArrayList<>(batch), // Create defensive copy
                 collectionName,
                 targetTableName);
 
         queue.put(documentBatch);
+        if (watermark != null) {
+            watermark.observe(batch);
+        }
         metrics.incrementProduced(batch.size());
 
         if (batchNumber % 10 == 0) {
@@ -0,0 +1,158 @@
+package com.sahil.backend.service.worker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads one array-of-references field into a two-column join table
+ * Consumers call it with the same batches they write to the source table, so array
+ * elements are streamed to the target with COPY without a second pass over the collection.
+ * Ids are mapped from ObjectIds the same way as the tables' UUID id columns.
+ */
+public class JoinTableWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(JoinTableWriter.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String tableName;
+    private final String sourceField;
+    private final String sourceColumn;
+    private final String targetColumn;
+    private final List<String> indexColumns = new ArrayList<>();
+    private final boolean replaceExisting; // UPSERT: a batch's parents drop their previous rows first
+    private final AtomicLong rowsWritten = new AtomicLong();
+
+    public JoinTableWriter(JdbcTemplate jdbcTemplate, JsonNode joinTable, String writeMode) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tableName = joinTable.get("tableName").asText();
+        this.sourceField = joinTable.get("sourceField").asText();
+        this.sourceColumn = joinTable.get("sourceColumn").asText();
+        this.targetColumn = joinTable.get("targetColumn").asText();
+        this.replaceExisting = "UPSERT".equalsIgnoreCase(writeMode);
+
+        JsonNode indexes = joinTable.get("indexes");
+        if (indexes != null) {
+            for (JsonNode index : indexes) {
+                indexColumns.add(index.get("columns").get(0).asText());
+            }
+        }
+    }
+
+    /**
+     * Creates the join table, keyed on both columns, and its B-tree indexes.
+     * Foreign keys to the parent tables are added by the coordinator once every table
+     * of the run has loaded, since collections load in parallel
+     */
+    public void createTable() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + tableName + " ("
+                + sourceColumn + " UUID NOT NULL, "
+                + targetColumn + " UUID NOT NULL, "
+                + "PRIMARY KEY (" + sourceColumn + ", " + targetColumn + "))");
+        for (String column : indexColumns) {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_" + tableName + "_" + column
+                    + " ON " + tableName + " (" + column + ")");
+        }
+        logger.info("Created join table: {} ({} -> {})", tableName, sourceColumn, targetColumn);
+    }
+
+    /**
+     * Copies the (parent id, element id) pairs of a batch on the connection bound to the
+     * caller's transaction; DocumentConsumer always calls it in the transaction that inserts
+     * the batch's rows, so both commit or roll back together
+     */
+    public void write(List<Document> documents) {
+        write(documents, replaceExisting);
+    }
+
+    /**
+     * Like write, but first drops the rows of the batch's parents, for batches whose
+     * parents an earlier run may already have copied
+     */
+    public void rewrite(List<Document> documents) {
+        write(documents, true);
+    }
+
+    private void write(List<Document> documents, boolean replaceExisting) {
+        List<UUID> parentIds = new ArrayList<>(documents.size());
+        StringBuilder rows = new StringBuilder();
+        long rowCount = 0;
+
+        for (Document doc : documents) {
+            Object id = doc.get("_id");
+            if (!(id instanceof ObjectId)) {
+                continue;
+            }
+            UUID parentId = UUID.nameUUIDFromBytes(((ObjectId) id).toByteArray());
+            parentIds.add(parentId);
+
+            Object value = doc.get(sourceField);
+            if (!(value instanceof List)) {
+                continue;
+            }
+
+            // Repeated elements of one array map to a single row
+            Set<UUID> elementIds = new LinkedHashSet<>();
+            for (Object element : (List<?>) value) {
+                if (element instanceof ObjectId) {
+                    elementIds.add(UUID.nameUUIDFromBytes(((ObjectId) element).toByteArray()));
+                }
+            }
+            for (UUID elementId : elementIds) {
+                rows.append(parentId).append('\t').append(elementId).append('\n');
+                rowCount++;
+            }
+        }
+
+        if (parentIds.isEmpty() || (rowCount == 0 && !replaceExisting)) {
+            return;
+        }
+
+        String copySql = "COPY " + tableName + " (" + sourceColumn + ", " + targetColumn + ") FROM STDIN";
+        long copied = jdbcTemplate.execute((ConnectionCallback<Long>) con -> {
+            if (replaceExisting) {
+                try (PreparedStatement delete = con.prepareStatement(
+                        "DELETE FROM " + tableName + " WHERE " + sourceColumn + " = ANY(?)")) {
+                    Array ids = con.createArrayOf("uuid", parentIds.toArray());
+                    delete.setArray(1, ids);
+                    delete.executeUpdate();
+                }
+            }
+            if (rows.length() == 0) {
+                return 0L;
+            }
+            try {
+                return con.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql, new StringReader(rows.toString()));
+            } catch (IOException e) {
+                throw new SQLException("COPY into " + tableName + " failed", e);
+            }
+        });
+
+        rowsWritten.addAndGet(copied);
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten.get();
+    }
+}
@@ -0,0 +1,257 @@
+package com.sahil.backend.service.worker;
+
+import com.mongodb.client.model.Sorts;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.sahil.backend.model.DocumentBatch;
+import com.sahil.backend.model.MigrationMetrics;
+import org.bson.Document;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Producer that reads documents with the MongoDB reactive-streams driver
+ * Cursor demand is driven by the queue: the next request(n) is only issued once
+ * the previous batch has been accepted, so backpressure reaches the source.
+ * No thread waits on the producer's behalf: filled batches are offered to the migration
+ * queue from the driver's callbacks, and a full queue or a rate limiter delay is retried
+ * on the shared scheduler.
+ */
+public class ReactiveDocumentProducer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveDocumentProducer.class);
+
+    // Delay before offering again to a full migration queue
+    private static final long QUEUE_RETRY_MILLIS = 20;
+
+    private final MongoCollection<Document> collection;
+    private final BlockingQueue<DocumentBatch> queue;
+    private final MigrationMetrics metrics;
+    private final int batchSize;
+    private final int mongoFetchSize;
+    private final String collectionName;
+    private final String targetTableName;
+    private final SourceRateLimiter rateLimiter; // Shared per source cluster, may be null
+    private final WatermarkCursor watermark; // Incremental sync read spec, null for a full copy
+
+    private final Queue<List<Document>> pending = new ConcurrentLinkedQueue<>(); // Filled batches not yet queued
+    private final AtomicInteger wip = new AtomicInteger(); // Serializes drain() across driver and scheduler threads
+    private final AtomicBoolean retryScheduled = new AtomicBoolean();
+    private final CompletableFuture<Void> result = new CompletableFuture<>();
+    private ScheduledExecutorService scheduler;
+    private BatchSubscriber subscriber;
+
+    // Only touched inside drain()
+    private long resumeAtNanos = 0; // Rate limiter delay reserved for the head batch
+    private boolean headReserved = false;
+    private int batchCount = 0;
+
+    public ReactiveDocumentProducer(
+            MongoCollection<Document> collection,
+            BlockingQueue<DocumentBatch> queue,
+            MigrationMetrics metrics,
+            int batchSize,
+            int mongoFetchSize,
+            String collectionName,
+            String targetTableName,
+            SourceRateLimiter rateLimiter,
+            WatermarkCursor watermark) {
+        this.collection = collection;
+        this.queue = queue;
+        this.metrics = metrics;
+        this.batchSize = batchSize;
+        this.mongoFetchSize = mongoFetchSize;
+        this.collectionName = collectionName;
+        this.targetTableName = targetTableName;
+        this.rateLimiter = rateLimiter;
+        this.watermark = watermark;
+    }
+
+    /**
+     * Subscribes to the collection; the returned future completes once every document
+     * has been queued (or the stream failed), and cancelling it cancels the cursor
+     */
+    public CompletableFuture<Void> start(ScheduledExecutorService scheduler) {
+        logger.info("Reactive producer started for collection: {} -> {}", collectionName, targetTableName);
+        this.scheduler = scheduler;
+        this.subscriber = new BatchSubscriber();
+        result.whenComplete((v, ex) -> {
+            if (result.isCancelled()) {
+                subscriber.cancel();
+            }
+        });
+
+        FindPublisher<Document> find = watermark != null
+                ? collection.find(watermark.filter()).sort(watermark.sort())
+                : collection.find().sort(Sorts.ascending("_id")); // Same ranges as the batch ledger's on resume
+        find
+                .batchSize(Math.min(mongoFetchSize, batchSize))
+                .subscribe(subscriber);
+        return result;
+    }
+
+    /**
+     * Moves pending batches into the migration queue until it is full, the rate limiter
+     * asks for a delay, or nothing is pending. Re-entrant calls from other threads are
+     * folded into the running one.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            try {
+                drainPending();
+            } catch (Exception e) {
+                logger.error("Reactive producer failed for collection: {}", collectionName, e);
+                subscriber.cancel();
+                metrics.incrementErrors();
+                result.complete(null);
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drainPending() {
+        while (!result.isDone()) {
+            List<Document> batch = pending.peek();
+            if (batch == null) {
+                if (subscriber.isDone()) {
+                    finish();
+                }
+                return;
+            }
+
+            if (rateLimiter != null && !headReserved) {
+                long waitNanos = rateLimiter.reserve(batch.size(),
+                        rateLimiter.isByteLimited() ? SourceRateLimiter.estimateBytes(batch) : 0);
+                headReserved = true;
+                resumeAtNanos = System.nanoTime() + waitNanos;
+            }
+            long delayNanos = resumeAtNanos - System.nanoTime();
+            if (headReserved && delayNanos > 0) {
+                scheduleDrain(delayNanos);
+                return;
+            }
+
+            if (!queue.offer(DocumentBatch.of(batch, collectionName, targetTableName))) {
+                scheduleDrain(TimeUnit.MILLISECONDS.toNanos(QUEUE_RETRY_MILLIS));
+                return;
+            }
+            pending.poll();
+            headReserved = false;
+
+            if (watermark != null) {
+                watermark.observe(batch);
+            }
+            metrics.incrementProduced(batch.size());
+
+            if (++batchCount % 10 == 0) {
+                logger.debug("Reactive producer pushed batch #{} for {} ({} docs, queue size: {})",
+                        batchCount, collectionName, batch.size(), queue.size());
+            }
+            subscriber.requestNext();
+        }
+    }
+
+    private void scheduleDrain(long delayNanos) {
+        if (retryScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> {
+                retryScheduled.set(false);
+                drain();
+            }, delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void finish() {
+        Throwable error = subscriber.getError();
+        if (error != null) {
+            logger.error("Reactive producer failed for collection: {}", collectionName, error);
+            metrics.incrementErrors();
+        } else {
+            logger.info("Reactive producer completed for collection: {} (produced {} batches, {} documents)",
+                    collectionName, batchCount, metrics.getDocumentsProduced());
+        }
+        result.complete(null);
+    }
+
+    /**
+     * Subscriber that requests exactly one batch of documents at a time.
+     * Callbacks run on driver threads and never block.
+     */
+    private class BatchSubscriber implements Subscriber<Document> {
+
+        private volatile Subscription subscription;
+        private volatile Throwable error;
+        private volatile boolean done;
+        private List<Document> current = new ArrayList<>(batchSize);
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.subscription = s;
+            s.request(batchSize);
+        }
+
+        @Override
+        public void onNext(Document document) {
+            current.add(document);
+            if (current.size() >= batchSize) {
+                pending.offer(current);
+                current = new ArrayList<>(batchSize);
+                drain();
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            this.error = t;
+            this.done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            if (!current.isEmpty()) {
+                pending.offer(current);
+            }
+            this.done = true;
+            drain();
+        }
+
+        void requestNext() {
+            Subscription s = subscription;
+            if (s != null && !done) {
+                s.request(batchSize);
+            }
+        }
+
+        void cancel() {
+            Subscription s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
+        }
+
+        boolean isDone() {
+            return done;
+        }
+
+        Throwable getError() {
+            return error;
+        }
+    }
+}
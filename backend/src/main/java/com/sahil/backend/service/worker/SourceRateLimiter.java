@@ -0,0 +1,179 @@
+package com.sahil.backend.service.worker;
+
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket limiting reads from one source cluster (docs/sec and bytes/sec)
+ * Shared by every producer reading from that cluster; limits can change mid-run
+ */
+public class SourceRateLimiter {
+
+    private final String clusterKey;
+    private final ReentrantLock lock = new ReentrantLock(); // Not synchronized: producers may be virtual threads
+
+    // Configured limits (<= 0 means unlimited)
+    private volatile double docsPerSecond;
+    private volatile double bytesPerSecond;
+
+    // Ceiling applied by the latency-based auto throttle (<= 0 means none)
+    private volatile double autoDocsCeiling;
+
+    private double docTokens;
+    private double byteTokens;
+    private long lastRefillNanos;
+
+    private final AtomicLong documentsAcquired = new AtomicLong(0);
+
+    public SourceRateLimiter(String clusterKey, double docsPerSecond, double bytesPerSecond) {
+        this.clusterKey = clusterKey;
+        this.docsPerSecond = docsPerSecond;
+        this.bytesPerSecond = bytesPerSecond;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Blocks until the given amount of documents/bytes may be read.
+     * Tokens are reserved up front (the bucket may go into debt) and the caller
+     * sleeps off the deficit outside the lock, so waiters are served in order.
+     */
+    public void acquire(int documents, long bytes) throws InterruptedException {
+        long waitNanos = reserve(documents, bytes);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Reserves the tokens without blocking and returns how long the caller must wait
+     * before reading (0 if the bucket covers the request)
+     */
+    public long reserve(int documents, long bytes) {
+        long waitNanos;
+
+        lock.lock();
+        try {
+            refill();
+
+            double docRate = getEffectiveDocsPerSecond();
+            double byteRate = bytesPerSecond;
+            waitNanos = 0;
+
+            if (docRate > 0) {
+                docTokens -= documents;
+                if (docTokens < 0) {
+                    waitNanos = Math.max(waitNanos, (long) (-docTokens / docRate * 1_000_000_000L));
+                }
+            }
+            if (byteRate > 0 && bytes > 0) {
+                byteTokens -= bytes;
+                if (byteTokens < 0) {
+                    waitNanos = Math.max(waitNanos, (long) (-byteTokens / byteRate * 1_000_000_000L));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        documentsAcquired.addAndGet(documents);
+        return waitNanos;
+    }
+
+    /**
+     * Whether byte sizes must be computed for acquire (only when a byte limit is set)
+     */
+    public boolean isByteLimited() {
+        return bytesPerSecond > 0;
+    }
+
+    /**
+     * Encoded BSON size of a batch, used for the bytes/sec limit
+     */
+    public static long estimateBytes(List<Document> documents) {
+        DocumentCodec codec = new DocumentCodec();
+        long total = 0;
+        for (Document doc : documents) {
+            total += new RawBsonDocument(doc, codec).getByteBuffer().remaining();
+        }
+        return total;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double elapsedSec = (now - lastRefillNanos) / 1_000_000_000.0;
+        lastRefillNanos = now;
+
+        // Burst capacity is one second's worth of tokens
+        double docRate = getEffectiveDocsPerSecond();
+        if (docRate > 0) {
+            docTokens = Math.min(docRate, docTokens + elapsedSec * docRate);
+        }
+        double byteRate = bytesPerSecond;
+        if (byteRate > 0) {
+            byteTokens = Math.min(byteRate, byteTokens + elapsedSec * byteRate);
+        }
+    }
+
+    // Limit adjustment
+
+    public void setLimits(double docsPerSecond, double bytesPerSecond) {
+        lock.lock();
+        try {
+            refill();
+            this.docsPerSecond = docsPerSecond;
+            this.bytesPerSecond = bytesPerSecond;
+            // Drop any debt accumulated under the old limits
+            docTokens = Math.max(docTokens, 0);
+            byteTokens = Math.max(byteTokens, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void setAutoDocsCeiling(double autoDocsCeiling) {
+        this.autoDocsCeiling = autoDocsCeiling;
+    }
+
+    // Getter methods
+
+    public String getClusterKey() {
+        return clusterKey;
+    }
+
+    public double getDocsPerSecond() {
+        return docsPerSecond;
+    }
+
+    public double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public double getAutoDocsCeiling() {
+        return autoDocsCeiling;
+    }
+
+    public long getDocumentsAcquired() {
+        return documentsAcquired.get();
+    }
+
+    /**
+     * Effective docs/sec limit: the lower of the configured limit and the auto ceiling
+     */
+    public double getEffectiveDocsPerSecond() {
+        double configured = docsPerSecond;
+        double ceiling = autoDocsCeiling;
+        if (configured <= 0) {
+            return ceiling;
+        }
+        if (ceiling <= 0) {
+            return configured;
+        }
+        return Math.min(configured, ceiling);
+    }
+}
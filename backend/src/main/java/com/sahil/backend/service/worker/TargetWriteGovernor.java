@@ -0,0 +1,194 @@
+package com.sahil.backend.service.worker;
+
+import com.sahil.backend.model.DocumentBatch;
+import com.sahil.backend.model.MigrationMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Throttles writes to the target PostgreSQL based on streaming replication lag
+ * Polls pg_stat_replication (replay lag) and requested checkpoints, and lowers the
+ * number of active consumers per table, down to pausing all writers, while replicas catch up
+ */
+public class TargetWriteGovernor {
+
+    private static final Logger logger = LoggerFactory.getLogger(TargetWriteGovernor.class);
+
+    private static final String REPLAY_LAG_SQL = "SELECT COALESCE(EXTRACT(EPOCH FROM MAX(replay_lag)) * 1000, 0) "
+            + "FROM pg_stat_replication";
+    private static final String CHECKPOINTS_SQL = "SELECT checkpoints_req FROM pg_stat_bgwriter";
+    private static final String CHECKPOINTS_SQL_PG17 = "SELECT num_requested FROM pg_stat_checkpointer";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxWriters;
+    private final long maxLagMs;
+    private final long pollIntervalMs;
+    private final LongConsumer lagListener;
+    private final List<MigrationMetrics> metrics = new CopyOnWriteArrayList<>();
+
+    private final ReentrantLock lock = new ReentrantLock(); // Not synchronized: consumers may be virtual threads
+    private final Condition turnAvailable = lock.newCondition();
+    private int allowedWriters;
+
+    private volatile long replicationLagMs = 0;
+    private long lastRequestedCheckpoints = -1;
+    private String checkpointsSql = CHECKPOINTS_SQL;
+    private ScheduledExecutorService poller;
+
+    public TargetWriteGovernor(
+            JdbcTemplate jdbcTemplate,
+            int maxWriters,
+            long maxLagMs,
+            long pollIntervalMs,
+            LongConsumer lagListener) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxWriters = maxWriters;
+        this.maxLagMs = maxLagMs;
+        this.pollIntervalMs = pollIntervalMs;
+        this.lagListener = lagListener;
+        this.allowedWriters = maxWriters;
+    }
+
+    public void start() {
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "target-lag-poller");
+            t.setDaemon(true);
+            return t;
+        });
+        poller.scheduleWithFixedDelay(this::poll, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+        // Never leave consumers parked once the run is over
+        setAllowedWriters(maxWriters);
+    }
+
+    /**
+     * Registers table metrics that should carry the current replication lag
+     */
+    public void registerMetrics(MigrationMetrics tableMetrics) {
+        metrics.add(tableMetrics);
+        tableMetrics.setTargetReplicationLagMs(replicationLagMs);
+    }
+
+    /**
+     * Blocks a consumer until it is allowed to write.
+     * Consumer IDs above the current writer limit wait; a limit of 0 pauses everyone.
+     * Parked consumers are released once their table's queue is draining (poison pill at the head).
+     */
+    public void awaitTurn(int consumerId, BlockingQueue<DocumentBatch> queue) throws InterruptedException {
+        lock.lock();
+        try {
+            while (consumerId > allowedWriters) {
+                DocumentBatch head = queue.peek();
+                if (head != null && head.isPoison()) {
+                    return;
+                }
+                turnAvailable.await(1, TimeUnit.SECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void poll() {
+        try {
+            Double lag = jdbcTemplate.queryForObject(REPLAY_LAG_SQL, Double.class);
+            replicationLagMs = lag != null ? lag.longValue() : 0;
+            boolean checkpointPressure = pollRequestedCheckpoints();
+
+            for (MigrationMetrics tableMetrics : metrics) {
+                tableMetrics.setTargetReplicationLagMs(replicationLagMs);
+            }
+            if (lagListener != null) {
+                lagListener.accept(replicationLagMs);
+            }
+
+            adjustWriters(checkpointPressure);
+
+        } catch (Exception e) {
+            logger.warn("Failed to read replication lag from target, disabling lag throttling", e);
+            stop();
+        }
+    }
+
+    /**
+     * Requested checkpoints growing between polls means WAL volume exceeds max_wal_size
+     */
+    private boolean pollRequestedCheckpoints() {
+        Long requested;
+        try {
+            requested = jdbcTemplate.queryForObject(checkpointsSql, Long.class);
+        } catch (Exception e) {
+            if (checkpointsSql.equals(CHECKPOINTS_SQL_PG17)) {
+                return false;
+            }
+            // PostgreSQL 17 moved checkpoint counters to pg_stat_checkpointer
+            checkpointsSql = CHECKPOINTS_SQL_PG17;
+            return false;
+        }
+
+        boolean pressure = lastRequestedCheckpoints >= 0 && requested != null
+                && requested > lastRequestedCheckpoints;
+        lastRequestedCheckpoints = requested != null ? requested : -1;
+        return pressure;
+    }
+
+    private void adjustWriters(boolean checkpointPressure) {
+        int current = getAllowedWriters();
+        int next = current;
+
+        if (replicationLagMs > maxLagMs * 2) {
+            next = 0; // Pause all writers until replicas catch up
+        } else if (replicationLagMs > maxLagMs) {
+            next = Math.max(1, current / 2);
+        } else if (checkpointPressure) {
+            next = Math.max(1, current - 1);
+        } else if (replicationLagMs < maxLagMs / 2) {
+            next = Math.min(maxWriters, Math.max(1, current + 1));
+        }
+
+        if (next != current) {
+            logger.info("Target replication lag {} ms (limit {} ms, checkpoint pressure: {}), writers per table {} -> {}",
+                    replicationLagMs, maxLagMs, checkpointPressure, current, next);
+            setAllowedWriters(next);
+        }
+    }
+
+    private void setAllowedWriters(int writers) {
+        lock.lock();
+        try {
+            allowedWriters = writers;
+            turnAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getAllowedWriters() {
+        lock.lock();
+        try {
+            return allowedWriters;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getReplicationLagMs() {
+        return replicationLagMs;
+    }
+}
@@ -0,0 +1,62 @@
+package com.sahil.backend.service.worker;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read specification for an incremental sync pass
+ * Selects documents at or past the stored watermark, in watermark order, so the
+ * field's index drives the scan, and remembers the highest value handed to the queue
+ */
+public class WatermarkCursor {
+
+    private final String field;
+    private final List<String> fieldPath;
+    private final Object startValue; // null on the first pass (read everything)
+    private volatile Object highWatermark;
+
+    public WatermarkCursor(String field, Object startValue) {
+        this.field = field;
+        this.fieldPath = Arrays.asList(field.split("\\."));
+        this.startValue = startValue;
+        this.highWatermark = startValue;
+    }
+
+    /**
+     * $gte rather than $gt: documents sharing the boundary value may have been written
+     * after the previous pass read it; re-reading them is harmless under upsert
+     */
+    public Bson filter() {
+        return startValue == null ? new Document() : Filters.gte(field, startValue);
+    }
+
+    public Bson sort() {
+        return Sorts.ascending(field);
+    }
+
+    /**
+     * Records the watermark of the last document of a batch (batches arrive in ascending order)
+     */
+    public void observe(List<Document> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Object value = batch.get(batch.size() - 1).getEmbedded(fieldPath, Object.class);
+        if (value != null) {
+            highWatermark = value;
+        }
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public Object getHighWatermark() {
+        return highWatermark;
+    }
+}
@@ -0,0 +1,56 @@
+package com.sahil.backend.util;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.util.Date;
+import java.util.List;
+
+public class BsonTypes {
+
+    // Type names as reported in schema analysis, indexed by ordinal
+    public static final String[] NAMES = {
+            "null", "string", "int32", "int64", "double", "boolean",
+            "date", "objectId", "array", "object", "binary", "unknown" };
+
+    public static final int NULL = 0;
+    public static final int ARRAY = 8;
+    public static final int OBJECT = 9;
+    public static final int BINARY = 10;
+
+    /**
+     * Detects BSON data type, returned as an index into NAMES
+     */
+    public static int ordinal(Object value) {
+        if (value == null)
+            return NULL;
+        if (value instanceof String)
+            return 1;
+        if (value instanceof Integer)
+            return 2;
+        if (value instanceof Long)
+            return 3;
+        if (value instanceof Double)
+            return 4;
+        if (value instanceof Boolean)
+            return 5;
+        if (value instanceof Date)
+            return 6;
+        if (value instanceof ObjectId)
+            return 7;
+        if (value instanceof List)
+            return ARRAY;
+        if (value instanceof Document)
+            return OBJECT;
+        if (value instanceof byte[])
+            return BINARY;
+        return 11;
+    }
+
+    /**
+     * Detects BSON data type name (e.g., "int32", "objectId")
+     */
+    public static String name(Object value) {
+        return NAMES[ordinal(value)];
+    }
+}
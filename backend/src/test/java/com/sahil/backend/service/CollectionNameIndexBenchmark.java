@@ -0,0 +1,158 @@
+package com.sahil.backend.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reference-target lookups over a synthetic schema of 5,000 collections: the name index
+ * (built once per analysis, as in RelationshipDetectorService) against the regex and
+ * List.contains scan it replaced, which ran twice per field.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class CollectionNameIndexBenchmark {
+
+	private static final Pattern UNDERSCORE_ID_PATTERN = Pattern.compile("(.+)_id$");
+	private static final Pattern CAMEL_CASE_ID_PATTERN = Pattern.compile("(.+)Id$");
+	private static final Pattern PLURAL_PATTERN = Pattern.compile("(.+)s$");
+
+	private static final String[] WORDS = { "order", "customer", "invoice", "shipment", "product", "category",
+			"address", "payment", "review", "account", "session", "device", "region", "supplier", "batch" };
+
+	@Param({ "5000" })
+	int collections;
+
+	@Param({ "20" })
+	int fieldsPerCollection;
+
+	private List<String> collectionNames;
+	private List<String> fieldNames;
+
+	@Setup
+	public void generate() {
+		Random random = new Random(42);
+		collectionNames = new ArrayList<>(collections);
+		for (int i = 0; i < collections; i++) {
+			String word = WORDS[i % WORDS.length];
+			// Plural names, half of them snake_case pairs
+			collectionNames.add(i % 2 == 0 ? word + i + "s" : word + "_" + WORDS[(i / 2) % WORDS.length] + i + "s");
+		}
+
+		// A quarter of the fields reference another collection, in snake or camel case
+		fieldNames = new ArrayList<>(collections * fieldsPerCollection);
+		for (int i = 0; i < collections * fieldsPerCollection; i++) {
+			if (random.nextInt(4) > 0) {
+				fieldNames.add("field" + random.nextInt(50));
+				continue;
+			}
+			String target = collectionNames.get(random.nextInt(collections));
+			String singular = target.substring(0, target.length() - 1);
+			fieldNames.add(random.nextBoolean() ? singular + "_id" : camelCase(singular) + "Id");
+		}
+	}
+
+	@Benchmark
+	public int nameIndex() {
+		CollectionNameIndex index = new CollectionNameIndex(collectionNames);
+		int matches = 0;
+		for (String fieldName : fieldNames) {
+			if (index.inferTargetCollection(fieldName) != null) {
+				matches++;
+			}
+		}
+		return matches;
+	}
+
+	@Benchmark
+	public int listScan() {
+		int matches = 0;
+		for (String fieldName : fieldNames) {
+			// Once for the ObjectId check and once for the naming-convention check
+			if (inferTargetCollection(fieldName, collectionNames) != null) {
+				matches++;
+			}
+			if (inferTargetCollection(fieldName, collectionNames) != null) {
+				matches++;
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * The lookup CollectionNameIndex replaced
+	 */
+	private static String inferTargetCollection(String fieldName, List<String> collectionNames) {
+		Matcher underscoreMatcher = UNDERSCORE_ID_PATTERN.matcher(fieldName);
+		if (underscoreMatcher.matches()) {
+			String targetCollection = findMatchingCollection(underscoreMatcher.group(1), collectionNames);
+			if (targetCollection != null)
+				return targetCollection;
+		}
+
+		Matcher camelCaseMatcher = CAMEL_CASE_ID_PATTERN.matcher(fieldName);
+		if (camelCaseMatcher.matches()) {
+			String targetCollection = findMatchingCollection(camelCaseMatcher.group(1).toLowerCase(), collectionNames);
+			if (targetCollection != null)
+				return targetCollection;
+		}
+		return null;
+	}
+
+	private static String findMatchingCollection(String baseName, List<String> collectionNames) {
+		if (collectionNames.contains(baseName)) {
+			return baseName;
+		}
+		String plural = baseName + "s";
+		if (collectionNames.contains(plural)) {
+			return plural;
+		}
+		Matcher pluralMatcher = PLURAL_PATTERN.matcher(baseName);
+		if (pluralMatcher.matches() && collectionNames.contains(pluralMatcher.group(1))) {
+			return pluralMatcher.group(1);
+		}
+		return null;
+	}
+
+	private static String camelCase(String snakeCase) {
+		StringBuilder sb = new StringBuilder(snakeCase.length());
+		boolean upper = false;
+		for (char c : snakeCase.toCharArray()) {
+			if (c == '_') {
+				upper = true;
+			} else {
+				sb.append(upper ? Character.toUpperCase(c) : c);
+				upper = false;
+			}
+		}
+		return sb.toString();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(CollectionNameIndexBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -0,0 +1,60 @@
+package com.sahil.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CollectionNameIndexTest {
+
+	private final CollectionNameIndex index = new CollectionNameIndex(
+			List.of("users", "order_items", "categories", "addresses", "boxes", "tags", "customer", "customers"));
+
+	@Test
+	void referenceFieldSpellingsMeetTheSameCollection() {
+		assertEquals("users", index.inferTargetCollection("user_id"));
+		assertEquals("users", index.inferTargetCollection("userId"));
+		assertEquals("users", index.inferTargetCollection("userID"));
+		assertEquals("order_items", index.inferTargetCollection("orderItemId"));
+		assertEquals("order_items", index.inferTargetCollection("order_item_id"));
+		assertEquals("categories", index.inferTargetCollection("categoryId"));
+		assertEquals("addresses", index.inferTargetCollection("address_id"));
+		assertEquals("boxes", index.inferTargetCollection("boxId"));
+	}
+
+	@Test
+	void arrayFieldSpellingsMeetTheSameCollection() {
+		assertEquals("tags", index.inferArrayTargetCollection("tag_ids"));
+		assertEquals("tags", index.inferArrayTargetCollection("tagIds"));
+		assertEquals("tags", index.inferArrayTargetCollection("tagIDs"));
+		assertEquals("tags", index.inferArrayTargetCollection("tags"));
+		assertEquals("order_items", index.inferArrayTargetCollection("orderItems"));
+	}
+
+	@Test
+	void exactNamesWinOverSingularForms() {
+		assertEquals("customer", index.find("customer"));
+		assertEquals("customers", index.find("customers"));
+		assertEquals("customer", index.inferTargetCollection("customerId"));
+	}
+
+	@Test
+	void unrelatedNamesDoNotMatch() {
+		assertNull(index.inferTargetCollection("productId"));
+		assertNull(index.inferTargetCollection("id"));
+		assertNull(index.inferTargetCollection("status"));
+		assertNull(index.inferArrayTargetCollection("line_ids"));
+	}
+
+	@Test
+	void singularFormsFollowEnglishPlurals() {
+		assertEquals("category", CollectionNameIndex.singular("categories"));
+		assertEquals("address", CollectionNameIndex.singular("addresses"));
+		assertEquals("box", CollectionNameIndex.singular("boxes"));
+		assertEquals("match", CollectionNameIndex.singular("matches"));
+		assertEquals("user", CollectionNameIndex.singular("users"));
+		assertEquals("orderitems", CollectionNameIndex.normalize("Order_Items"));
+	}
+}
@@ -0,0 +1,144 @@
+package com.sahil.backend.service;
+
+import com.sahil.backend.util.BsonTypes;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Field statistics of a sample of synthetic nested documents: the path trie against
+ * the per-visit path strings and FieldInfo lookups it replaced.
+ * Run with the GC profiler to compare allocation per sample (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FieldPathTrieBenchmark {
+
+	@Param({ "1000" })
+	int documents;
+
+	@Param({ "3" })
+	int depth;
+
+	@Param({ "8" })
+	int fieldsPerLevel;
+
+	private List<Document> sample;
+
+	@Setup
+	public void generate() {
+		Random random = new Random(42);
+		sample = new ArrayList<>(documents);
+		for (int i = 0; i < documents; i++) {
+			sample.add(document(random, depth));
+		}
+	}
+
+	@Benchmark
+	public Map<String, MongoSamplerService.FieldInfo> pathTrie() {
+		FieldPathTrie trie = new FieldPathTrie(10);
+		for (Document doc : sample) {
+			trie.accept(doc);
+		}
+		return trie.toFieldStats();
+	}
+
+	@Benchmark
+	public Map<String, MongoSamplerService.FieldInfo> pathStrings() {
+		Map<String, MongoSamplerService.FieldInfo> fieldStats = new HashMap<>();
+		for (Document doc : sample) {
+			analyzeDocument(doc, "", fieldStats);
+		}
+		return fieldStats;
+	}
+
+	/**
+	 * The accumulation FieldPathTrie replaced: a path string and a FieldInfo lookup per field visit
+	 */
+	private static void analyzeDocument(Document doc, String prefix, Map<String, MongoSamplerService.FieldInfo> fieldStats) {
+		for (Map.Entry<String, Object> entry : doc.entrySet()) {
+			String fieldPath = prefix.isEmpty() ? entry.getKey() : prefix + "." + entry.getKey();
+			Object value = entry.getValue();
+
+			MongoSamplerService.FieldInfo info = fieldStats.getOrDefault(fieldPath,
+					new MongoSamplerService.FieldInfo(fieldPath));
+			info.incrementCount();
+			info.addDataType(BsonTypes.name(value));
+
+			if (value instanceof List<?> list) {
+				info.setArray(true);
+				for (Object item : list) {
+					if (item instanceof Document) {
+						analyzeDocument((Document) item, fieldPath + "[]", fieldStats);
+					}
+				}
+			} else if (value instanceof Document) {
+				info.setNested(true);
+				analyzeDocument((Document) value, fieldPath, fieldStats);
+			}
+			fieldStats.put(fieldPath, info);
+		}
+	}
+
+	/**
+	 * Mixed scalar fields (some optional), one embedded document and one array of
+	 * documents per level
+	 */
+	private Document document(Random random, int levels) {
+		Document doc = new Document("_id", new ObjectId());
+		for (int f = 0; f < fieldsPerLevel; f++) {
+			if (f > 2 && random.nextInt(4) == 0) {
+				continue;
+			}
+			Object value = switch (f % 4) {
+				case 0 -> "value-" + random.nextInt(1000);
+				case 1 -> random.nextInt(100_000);
+				case 2 -> random.nextDouble();
+				default -> new Date(1_600_000_000_000L + random.nextInt(1_000_000));
+			};
+			doc.append("field" + f, value);
+		}
+		if (levels > 1) {
+			doc.append("nested", document(random, levels - 1));
+			List<Document> items = new ArrayList<>();
+			for (int i = random.nextInt(4); i > 0; i--) {
+				items.add(document(random, levels - 1));
+			}
+			doc.append("items", items);
+		}
+		return doc;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(FieldPathTrieBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
@@ -0,0 +1,191 @@
+package com.sahil.backend.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FieldPathTrieTest {
+
+	@Test
+	void nestedFieldsAreCountedUnderTheirDottedPath() {
+		FieldPathTrie trie = new FieldPathTrie(5);
+		for (int i = 0; i < 100; i++) {
+			trie.accept(new Document("name", "user" + i).append("age", i)
+					.append("address", new Document("city", "c" + i)));
+		}
+		trie.accept(new Document("name", "other").append("age", "unknown"));
+
+		Map<String, MongoSamplerService.FieldInfo> fields = trie.toFieldStats();
+		assertEquals(Set.of("name", "age", "address", "address.city"), fields.keySet());
+		assertEquals(101, trie.getDocumentCount());
+		assertEquals(101, fields.get("name").getCount());
+		assertEquals(100, fields.get("address.city").getCount());
+		assertTrue(fields.get("address").isNested());
+		assertEquals("address.city", fields.get("address.city").getFieldPath());
+	}
+
+	@Test
+	void typesAreCountedPerPath() {
+		FieldPathTrie trie = new FieldPathTrie(5);
+		for (int i = 0; i < 100; i++) {
+			trie.accept(new Document("age", i));
+		}
+		trie.accept(new Document("age", "unknown"));
+
+		MongoSamplerService.FieldInfo age = trie.toFieldStats().get("age");
+		assertEquals(101, age.getCount());
+		assertEquals(100, (int) age.getTypeCounts().get("int32"));
+		assertEquals(1, (int) age.getTypeCounts().get("string"));
+		assertEquals(Set.of("int32", "string"), age.getDataTypes());
+	}
+
+	@Test
+	void arrayElementFieldsCountEveryElement() {
+		FieldPathTrie trie = new FieldPathTrie(5);
+		for (int i = 1; i <= 50; i++) {
+			List<Document> items = new ArrayList<>();
+			for (int j = 0; j < i; j++) {
+				items.add(new Document("sku", "s" + j).append("qty", j));
+			}
+			trie.accept(new Document("orderId", i).append("items", items));
+		}
+
+		Map<String, MongoSamplerService.FieldInfo> fields = trie.toFieldStats();
+		assertTrue(fields.get("items").isArray());
+		assertEquals(50, fields.get("items").getCount());
+		assertEquals(50 * 51 / 2, fields.get("items[].sku").getCount());
+		assertEquals(50 * 51 / 2, fields.get("items[].qty").getCount());
+	}
+
+	@Test
+	void scalarArraysCountTheirElementTypes() {
+		FieldPathTrie trie = new FieldPathTrie(5);
+		trie.accept(new Document("tags", List.of("a", "b")));
+		trie.accept(new Document("tags", List.of("c")));
+		trie.accept(new Document("tags", List.of(1, 2)));
+
+		MongoSamplerService.FieldInfo tags = trie.toFieldStats().get("tags");
+		assertEquals(3, tags.getCount());
+		assertEquals(Map.of("string", 2, "int32", 1), tags.getElementTypeCounts());
+	}
+
+	@Test
+	void scalarValuesAreSketchedPerPath() {
+		FieldPathTrie trie = new FieldPathTrie(5);
+		for (int i = 0; i < 10; i++) {
+			trie.accept(new Document("code", "c" + (i % 4)).append("address", new Document("city", "city-" + i)));
+		}
+
+		Map<String, MongoSamplerService.FieldInfo> fields = trie.toFieldStats();
+		FieldSketch code = fields.get("code").getSketch();
+		assertEquals(10, code.getValueCount());
+		assertEquals(4, code.getDistinctCount());
+		assertEquals(6, fields.get("address.city").getSketch().getMaxLength());
+	}
+
+	@Test
+	void countsAccumulateAcrossEmits() {
+		FieldPathTrie trie = new FieldPathTrie(5);
+		trie.accept(new Document("x", 1));
+		assertEquals(1, trie.toFieldStats().get("x").getCount());
+
+		trie.accept(new Document("x", 2));
+		trie.accept(new Document("x", 3));
+		assertEquals(3, trie.toFieldStats().get("x").getCount());
+	}
+
+	@Test
+	void pathsStopAtTheDepthLimit() {
+		FieldPathTrie trie = new FieldPathTrie(1);
+		trie.accept(new Document("a", new Document("b", new Document("c", 1))));
+		trie.accept(new Document("a", new Document("b", new Document("d", 1))));
+
+		Map<String, MongoSamplerService.FieldInfo> fields = trie.toFieldStats();
+		assertEquals(2, fields.get("a.b").getCount());
+		assertFalse(fields.containsKey("a.b.c"));
+	}
+
+	@Test
+	void documentsWithTheSameKeysAndTypesShareOneShape() {
+		FieldPathTrie trie = new FieldPathTrie(5);
+		for (int i = 0; i < 100; i++) {
+			trie.accept(new Document("name", "user" + i).append("age", i)
+					.append("address", new Document("city", "c" + i)));
+		}
+		trie.accept(new Document("name", "other").append("age", "unknown"));
+
+		assertEquals(2, trie.getShapeCount());
+		assertEquals(101, trie.toFieldStats().get("name").getSketch().getValueCount());
+	}
+
+	@Test
+	void arrayLengthDoesNotCreateNewShapes() {
+		FieldPathTrie trie = new FieldPathTrie(5);
+		for (int i = 1; i <= 50; i++) {
+			List<Document> items = new ArrayList<>();
+			for (int j = 0; j < i; j++) {
+				items.add(new Document("sku", "s" + j).append("qty", j));
+			}
+			trie.accept(new Document("orderId", i).append("items", items));
+		}
+
+		assertEquals(1, trie.getShapeCount());
+		// Element values are still sketched for every element
+		assertEquals(50 * 51 / 2, trie.toFieldStats().get("items[].qty").getSketch().getValueCount());
+	}
+
+	@Test
+	void elementShapesCountOncePerArray() {
+		FieldPathTrie trie = new FieldPathTrie(5);
+		trie.accept(new Document("items", List.of(new Document("a", 1), new Document("b", "x"))));
+		trie.accept(new Document("items", List.of(new Document("b", "y"), new Document("a", 2), new Document("a", 3))));
+		trie.accept(new Document("items", List.of(new Document("a", 4))));
+
+		// The first two hold the same set of element shapes, in a different order and number
+		assertEquals(2, trie.getShapeCount());
+
+		Map<String, MongoSamplerService.FieldInfo> fields = trie.toFieldStats();
+		assertEquals(4, fields.get("items[].a").getCount());
+		assertEquals(2, fields.get("items[].b").getCount());
+	}
+
+	@Test
+	void nestingIsPartOfTheShape() {
+		FieldPathTrie trie = new FieldPathTrie(5);
+		trie.accept(new Document("a", new Document("b", 1)).append("c", 2));
+		trie.accept(new Document("a", new Document("b", 1).append("c", 2)));
+
+		assertEquals(2, trie.getShapeCount());
+
+		Map<String, MongoSamplerService.FieldInfo> fields = trie.toFieldStats();
+		assertEquals(1, fields.get("c").getCount());
+		assertEquals(1, fields.get("a.c").getCount());
+	}
+
+	@Test
+	void emptyArraysAndArraysOfDocumentsAreDifferentShapes() {
+		FieldPathTrie trie = new FieldPathTrie(5);
+		trie.accept(new Document("items", List.of()));
+		trie.accept(new Document("items", List.of(new Document("a", 1))));
+		trie.accept(new Document("items", List.of("x")));
+
+		assertEquals(3, trie.getShapeCount());
+	}
+
+	@Test
+	void fieldsBelowTheDepthLimitAreNotShapeRelevant() {
+		FieldPathTrie trie = new FieldPathTrie(1);
+		trie.accept(new Document("a", new Document("b", new Document("c", 1))));
+		trie.accept(new Document("a", new Document("b", new Document("d", 1))));
+
+		assertEquals(1, trie.getShapeCount());
+	}
+}
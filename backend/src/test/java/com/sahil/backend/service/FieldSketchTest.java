@@ -0,0 +1,142 @@
+package com.sahil.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FieldSketchTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void topValuesBoundTheTrueCounts() {
+		List<String> stream = skewedStream(new Random(42));
+		Map<String, Integer> trueCounts = countValues(stream);
+
+		FieldSketch sketch = new FieldSketch();
+		stream.forEach(sketch::add);
+
+		assertTopValuesBounded(sketch, trueCounts);
+		// Values above N / 40 (the sketch keeps 40 counters) are always among the reported values
+		JsonNode top = sketch.toJson(objectMapper).get("topValues");
+		for (String heavy : List.of("hot-0", "hot-1", "hot-2", "hot-3")) {
+			assertTrue(reported(top, heavy), heavy + " missing from " + top);
+		}
+		assertEquals("hot-0", top.get(0).get("value").asText());
+	}
+
+	@Test
+	void mergedSketchesKeepTheirBounds() {
+		List<String> stream = skewedStream(new Random(7));
+		FieldSketch left = new FieldSketch();
+		FieldSketch right = new FieldSketch();
+		for (int i = 0; i < stream.size(); i++) {
+			(i % 2 == 0 ? left : right).add(stream.get(i));
+		}
+
+		left.merge(right);
+
+		assertEquals(stream.size(), left.getValueCount());
+		assertTopValuesBounded(left, countValues(stream));
+		assertTrue(reported(left.toJson(objectMapper).get("topValues"), "hot-0"));
+	}
+
+	@Test
+	void distinctCountAndRangesMerge() {
+		FieldSketch left = new FieldSketch();
+		FieldSketch right = new FieldSketch();
+		for (int i = 0; i < 30_000; i++) {
+			left.add(i);
+		}
+		for (int i = 20_000; i < 50_000; i++) {
+			right.add(i);
+		}
+
+		left.merge(right);
+
+		double error = Math.abs(left.getDistinctCount() - 50_000) / 50_000.0;
+		assertTrue(error <= 0.07, "distinct estimate " + left.getDistinctCount());
+		JsonNode json = left.toJson(objectMapper);
+		assertEquals(0.0, json.get("min").asDouble(), 0.0);
+		assertEquals(49_999.0, json.get("max").asDouble(), 0.0);
+	}
+
+	@Test
+	void stringLengthPercentilesAreExact() {
+		FieldSketch sketch = new FieldSketch();
+		for (int length = 1; length <= 100; length++) {
+			sketch.add("x".repeat(length));
+		}
+
+		assertEquals(50, sketch.getLengthPercentile(50));
+		assertEquals(95, sketch.getLengthPercentile(95));
+		assertEquals(100, sketch.getMaxLength());
+
+		FieldSketch other = new FieldSketch();
+		other.add("y".repeat(500));
+		sketch.merge(other);
+		assertEquals(500, sketch.getMaxLength());
+		assertEquals(100, sketch.getLengthPercentile(99));
+	}
+
+	@Test
+	void distinctCountNeverExceedsTheValuesSeen() {
+		FieldSketch sketch = new FieldSketch();
+		sketch.add("a");
+		sketch.add("b");
+		assertEquals(2, sketch.getDistinctCount());
+	}
+
+	/**
+	 * Five heavy hitters with halving counts, shuffled into 5000 singletons
+	 */
+	private static List<String> skewedStream(Random random) {
+		List<String> stream = new ArrayList<>();
+		int count = 2000;
+		for (int hot = 0; hot < 5; hot++, count /= 2) {
+			for (int i = 0; i < count; i++) {
+				stream.add("hot-" + hot);
+			}
+		}
+		for (int i = 0; i < 5000; i++) {
+			stream.add("rare-" + i);
+		}
+		Collections.shuffle(stream, random);
+		return stream;
+	}
+
+	private static Map<String, Integer> countValues(List<String> stream) {
+		Map<String, Integer> counts = new HashMap<>();
+		stream.forEach(value -> counts.merge(value, 1, Integer::sum));
+		return counts;
+	}
+
+	private void assertTopValuesBounded(FieldSketch sketch, Map<String, Integer> trueCounts) {
+		for (JsonNode item : sketch.toJson(objectMapper).get("topValues")) {
+			long count = item.get("count").asLong();
+			long error = item.get("error").asLong();
+			int actual = trueCounts.get(item.get("value").asText());
+			assertTrue(count - error <= actual && actual <= count,
+					item.get("value").asText() + ": " + actual + " outside [" + (count - error) + ", " + count + "]");
+		}
+	}
+
+	private static boolean reported(JsonNode top, String value) {
+		for (JsonNode item : top) {
+			if (value.equals(item.get("value").asText())) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
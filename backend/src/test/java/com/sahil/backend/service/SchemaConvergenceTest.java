@@ -0,0 +1,72 @@
+package com.sahil.backend.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaConvergenceTest {
+
+	@Test
+	void stableChunksConverge() {
+		FieldPathTrie trie = new FieldPathTrie(5);
+		SchemaConvergence convergence = new SchemaConvergence(0.95);
+
+		addChunk(trie, 0, 100);
+		assertFalse(convergence.update(trie.toFieldStats(), trie.getDocumentCount()));
+
+		addChunk(trie, 100, 100);
+		assertTrue(convergence.update(trie.toFieldStats(), trie.getDocumentCount()));
+	}
+
+	@Test
+	void aNewFieldIsFullDrift() {
+		FieldPathTrie trie = new FieldPathTrie(5);
+		SchemaConvergence convergence = new SchemaConvergence(0.5);
+
+		addChunk(trie, 0, 100);
+		convergence.update(trie.toFieldStats(), trie.getDocumentCount());
+
+		trie.accept(new Document("name", "late").append("age", 1).append("nickname", "new"));
+		assertFalse(convergence.update(trie.toFieldStats(), trie.getDocumentCount()));
+	}
+
+	@Test
+	void aNewTypeIsFullDrift() {
+		FieldPathTrie trie = new FieldPathTrie(5);
+		SchemaConvergence convergence = new SchemaConvergence(0.5);
+
+		addChunk(trie, 0, 100);
+		convergence.update(trie.toFieldStats(), trie.getDocumentCount());
+
+		trie.accept(new Document("name", "late").append("age", "unknown"));
+		assertFalse(convergence.update(trie.toFieldStats(), trie.getDocumentCount()));
+	}
+
+	@Test
+	void shiftedFrequenciesDelayConvergence() {
+		FieldPathTrie trie = new FieldPathTrie(5);
+		SchemaConvergence convergence = new SchemaConvergence(0.95);
+
+		// Half the first chunk has no age; the second chunk always has one
+		for (int i = 0; i < 100; i++) {
+			Document doc = new Document("name", "n" + i);
+			if (i % 2 == 0) {
+				doc.append("age", i);
+			}
+			trie.accept(doc);
+		}
+		convergence.update(trie.toFieldStats(), trie.getDocumentCount());
+
+		addChunk(trie, 100, 100);
+		// age moves from 50% to 75% of documents
+		assertFalse(convergence.update(trie.toFieldStats(), trie.getDocumentCount()));
+	}
+
+	private static void addChunk(FieldPathTrie trie, int from, int count) {
+		for (int i = from; i < from + count; i++) {
+			trie.accept(new Document("name", "n" + i).append("age", i));
+		}
+	}
+}
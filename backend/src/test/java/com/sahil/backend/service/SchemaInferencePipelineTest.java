@@ -0,0 +1,82 @@
+package com.sahil.backend.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaInferencePipelineTest {
+
+	@Test
+	void tuplesFoldIntoOneFieldPerPath() {
+		Document result = facetResult(
+				List.of(tuple("age", "int", 90), tuple("age", "long", 8), tuple("age", "string", 2),
+						tuple("address", "object", 50), tuple("address.city", "string", 50)),
+				List.of(),
+				100);
+
+		Map<String, MongoSamplerService.FieldInfo> fields = SchemaInferencePipeline.toFieldStats(result);
+
+		MongoSamplerService.FieldInfo age = fields.get("age");
+		assertEquals(100, age.getCount());
+		assertEquals(Map.of("int32", 90, "int64", 8, "string", 2), age.getTypeCounts());
+		assertTrue(fields.get("address").isNested());
+		assertEquals(50, fields.get("address.city").getCount());
+		assertEquals(100, SchemaInferencePipeline.documentCount(result));
+	}
+
+	@Test
+	void scalarArraysCarryTheirElementTypes() {
+		Document result = facetResult(
+				List.of(tuple("tagIds", "array", 40), tuple("lines", "array", 10),
+						tuple("lines[].sku", "string", 30)),
+				List.of(tuple("tagIds", "objectId", 38), tuple("tagIds", "string", 2),
+						tuple("lines", "object", 10)),
+				40);
+
+		Map<String, MongoSamplerService.FieldInfo> fields = SchemaInferencePipeline.toFieldStats(result);
+
+		MongoSamplerService.FieldInfo tagIds = fields.get("tagIds");
+		assertTrue(tagIds.isArray());
+		assertEquals(Map.of("objectId", 38, "string", 2), tagIds.getElementTypeCounts());
+		// Arrays of documents are described by their element paths
+		assertTrue(fields.get("lines").getElementTypeCounts().isEmpty());
+		assertNull(tagIds.getSketch());
+	}
+
+	@Test
+	void emptyResultsHaveNoFieldsOrDocuments() {
+		Document result = new Document("fields", List.of()).append("elements", List.of()).append("docs", List.of());
+		assertTrue(SchemaInferencePipeline.toFieldStats(result).isEmpty());
+		assertEquals(0, SchemaInferencePipeline.documentCount(result));
+	}
+
+	@Test
+	void pipelineSamplesOnlyWhenASizeIsGiven() {
+		List<Document> sampled = SchemaInferencePipeline.build(500, 2);
+		List<Document> whole = SchemaInferencePipeline.build(0, 2);
+
+		assertEquals(new Document("size", 500), sampled.get(0).get("$sample"));
+		assertFalse(whole.get(0).containsKey("$sample"));
+		// $project, two stages per nesting level, then $facet
+		assertEquals(1 + 1 + 2 * 2 + 1, sampled.size());
+		Document facet = sampled.get(sampled.size() - 1).get("$facet", Document.class);
+		assertEquals(List.of("fields", "elements", "docs"), List.copyOf(facet.keySet()));
+	}
+
+	private static Document tuple(String path, String type, int count) {
+		return new Document("_id", new Document("p", path).append("t", type)).append("n", count);
+	}
+
+	private static Document facetResult(List<Document> fields, List<Document> elements, int documents) {
+		return new Document("fields", fields)
+				.append("elements", elements)
+				.append("docs", List.of(new Document("n", documents)));
+	}
+}
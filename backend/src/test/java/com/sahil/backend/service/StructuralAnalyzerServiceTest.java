@@ -0,0 +1,102 @@
+package com.sahil.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sahil.backend.config.MongoAnalysisConfig;
+import com.sahil.backend.model.MongoSchemaField;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StructuralAnalyzerServiceTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final MongoAnalysisConfig analysisConfig = new MongoAnalysisConfig();
+	private final StructuralAnalyzerService analyzer = new StructuralAnalyzerService();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(analyzer, "analysisConfig", analysisConfig);
+	}
+
+	@Test
+	void singleTypeFieldsGetTheNarrowestColumn() {
+		assertEquals("INTEGER", analyzer.selectColumnType(field("int32", 100)).getSqlType());
+		assertEquals("BOOLEAN", analyzer.selectColumnType(field("boolean", 100)).getSqlType());
+		assertEquals("TIMESTAMP", analyzer.selectColumnType(field("date", 100)).getSqlType());
+		assertEquals("TEXT", analyzer.selectColumnType(field("string", 100)).getSqlType());
+
+		StructuralAnalyzerService.TypeSelection ids = analyzer.selectColumnType(field("objectId", 100));
+		assertEquals("TEXT", ids.getSqlType());
+		assertEquals(Set.of("objectId"), ids.getAcceptedTypes());
+	}
+
+	@Test
+	void mixedNumbersWidenToTheTypeThatHoldsThemAll() {
+		assertEquals("BIGINT", analyzer.selectColumnType(field("int32", 60, "int64", 40)).getSqlType());
+		assertEquals("DOUBLE PRECISION", analyzer.selectColumnType(field("int32", 60, "double", 40)).getSqlType());
+	}
+
+	@Test
+	void rareTypesBecomeOutliersOfTheDominantType() {
+		StructuralAnalyzerService.TypeSelection selection = analyzer.selectColumnType(
+				field("int32", 995, "string", 5));
+
+		assertEquals("INTEGER", selection.getSqlType());
+		assertEquals(0.995, selection.getCoveredShare(), 1e-9);
+		assertTrue(selection.hasOutliers());
+	}
+
+	@Test
+	void nullsDoNotCountAgainstTheDominantType() {
+		StructuralAnalyzerService.TypeSelection selection = analyzer.selectColumnType(
+				field("int32", 50, "null", 50));
+
+		assertEquals("INTEGER", selection.getSqlType());
+		assertFalse(selection.hasOutliers());
+		assertEquals("TEXT", analyzer.selectColumnType(field("null", 10)).getSqlType());
+	}
+
+	@Test
+	void theDominantShareIsConfigurable() {
+		MongoSchemaField field = field("int32", 90, "string", 10);
+		// Strings and numbers together fit only a TEXT column
+		assertEquals("TEXT", analyzer.selectColumnType(field).getSqlType());
+
+		analysisConfig.setDominantTypeShare(0.9);
+		assertEquals("INTEGER", analyzer.selectColumnType(field).getSqlType());
+	}
+
+	@Test
+	void documentsAndArraysAreStoredAsJson() {
+		assertEquals("JSONB", analyzer.selectColumnType(field("object", 100)).getSqlType());
+
+		MongoSchemaField tags = field("array", 90, "string", 10);
+		tags.setIsArray(true);
+		StructuralAnalyzerService.TypeSelection selection = analyzer.selectColumnType(tags);
+		assertEquals("JSONB", selection.getSqlType());
+		assertFalse(selection.hasOutliers());
+	}
+
+	@Test
+	void fieldsWithoutTypeCountsAreLeftToTheirRecordedType() {
+		assertNull(analyzer.selectColumnType(new MongoSchemaField()));
+	}
+
+	private MongoSchemaField field(Object... typesAndCounts) {
+		ObjectNode counts = objectMapper.createObjectNode();
+		for (int i = 0; i < typesAndCounts.length; i += 2) {
+			counts.put((String) typesAndCounts[i], (Integer) typesAndCounts[i + 1]);
+		}
+		MongoSchemaField field = new MongoSchemaField();
+		field.setTypeCounts(counts);
+		return field;
+	}
+}
@@ -0,0 +1,176 @@
+package com.sahil.backend.service.worker;
+
+import com.sahil.backend.model.DocumentBatch;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchLedgerTest {
+
+	private final LedgerTable table = new LedgerTable();
+	private final UUID migrationId = UUID.randomUUID();
+	private final List<String> writes = new ArrayList<>();
+
+	@Test
+	void retriesOfACommittedBatchAreSkipped() {
+		BatchLedger ledger = ledger("FULL");
+
+		assertTrue(write(ledger, batch(1, 2, 3)));
+		assertFalse(write(ledger, batch(1, 2, 3)));
+		assertEquals(List.of("plain"), writes);
+	}
+
+	@Test
+	void aResumedRunSkipsCommittedRangesAndWritesTheRestWithoutConflicts() {
+		BatchLedger failed = ledger("FULL");
+		write(failed, batch(1, 2, 3));
+		writes.clear();
+
+		BatchLedger resumed = ledger("FULL");
+		// Batches keep the earlier run's size so they end on the same _ids
+		assertEquals(3, resumed.batchSizeFor("users", 1000));
+		assertFalse(write(resumed, batch(1, 2, 3)));
+		assertTrue(write(resumed, batch(4, 5, 6)));
+		assertEquals(List.of("overlap"), writes);
+	}
+
+	@Test
+	void aCommittedRangeHoldingOtherDocumentsIsWrittenWithoutConflicts() {
+		BatchLedger failed = ledger("FULL");
+		write(failed, batch(1, 2, 3));
+		writes.clear();
+
+		// A document inserted inside the range since: same first and last _id, other contents
+		BatchLedger resumed = ledger("FULL");
+		assertTrue(write(resumed, batch(1, 2, 2.5, 3)));
+		assertFalse(write(resumed, batch(1, 2, 2.5, 3)));
+		assertEquals(List.of("overlap"), writes);
+	}
+
+	@Test
+	void aFreshTableUsesTheConfiguredBatchSize() {
+		BatchLedger ledger = ledger("FULL");
+		assertEquals(1000, ledger.batchSizeFor("users", 1000));
+	}
+
+	@Test
+	void clearingSyncEntriesKeepsThoseOfAnUnfinishedFullCopy() {
+		write(ledger("FULL"), batch(1, 2, 3));
+		BatchLedger sync = ledger("SYNC");
+		write(sync, batch(7, 8));
+
+		sync.clear();
+
+		assertEquals(3, ledger("FULL").batchSizeFor("users", 1000));
+		assertEquals(1000, ledger("SYNC").batchSizeFor("users", 1000));
+	}
+
+	@Test
+	void idKeysKeepBsonTypesApart() {
+		assertNotEquals(BatchLedger.idKey(new Document("_id", 1)), BatchLedger.idKey(new Document("_id", "1")));
+		assertEquals(BatchLedger.idKey(new Document("_id", 1)), BatchLedger.idKey(new Document("_id", 1)));
+	}
+
+	private BatchLedger ledger(String runType) {
+		return new BatchLedger(table, migrationId, runType, UUID.randomUUID());
+	}
+
+	private boolean write(BatchLedger ledger, DocumentBatch batch) {
+		return ledger.writeOnce("users", batch, () -> writes.add("plain"), () -> writes.add("overlap"));
+	}
+
+	private static DocumentBatch batch(Object... ids) {
+		List<Document> documents = new ArrayList<>();
+		for (Object id : ids) {
+			documents.add(new Document("_id", id));
+		}
+		return DocumentBatch.of(documents, "users", "users");
+	}
+
+	/**
+	 * The ledger table in memory, answering the ledger's statements by their leading keyword
+	 */
+	private static class LedgerTable extends JdbcTemplate {
+
+		// (migration_id, run_type, table_name, first_id, last_id) -> (document_count, checksum, run_id)
+		private final Map<List<Object>, Object[]> rows = new HashMap<>();
+
+		LedgerTable() {
+			super(transactionalDataSource());
+		}
+
+		@Override
+		public int update(String sql, Object... args) {
+			if (sql.startsWith("INSERT")) {
+				List<Object> key = Arrays.asList(args[0], args[1], args[2], args[3], args[4]);
+				return rows.putIfAbsent(key, new Object[] { args[5], args[6], args[7] }) == null ? 1 : 0;
+			}
+			if (sql.startsWith("UPDATE")) {
+				List<Object> key = Arrays.asList(args[3], args[4], args[5], args[6], args[7]);
+				return rows.replace(key, new Object[] { args[0], args[1], args[2] }) != null ? 1 : 0;
+			}
+			if (sql.startsWith("DELETE")) {
+				int before = rows.size();
+				rows.keySet().removeIf(key -> key.get(0).equals(args[0]) && key.get(1).equals(args[1]));
+				return before - rows.size();
+			}
+			throw new UnsupportedOperationException(sql);
+		}
+
+		@Override
+		public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+			if (sql.startsWith("SELECT checksum")) {
+				Object[] row = rows.get(Arrays.asList(args));
+				return requiredType.cast(row != null ? row[1] : null);
+			}
+			if (sql.startsWith("SELECT COALESCE")) {
+				int max = 0;
+				for (Map.Entry<List<Object>, Object[]> row : rows.entrySet()) {
+					List<Object> key = row.getKey();
+					if (key.subList(0, 3).equals(Arrays.asList(args).subList(0, 3)) && !row.getValue()[2].equals(args[3])) {
+						max = Math.max(max, (Integer) row.getValue()[0]);
+					}
+				}
+				return requiredType.cast(max);
+			}
+			throw new UnsupportedOperationException(sql);
+		}
+
+		/**
+		 * Enough of a DataSource for DataSourceTransactionManager to begin and commit
+		 */
+		private static DataSource transactionalDataSource() {
+			ClassLoader loader = BatchLedgerTest.class.getClassLoader();
+			Connection connection = (Connection) Proxy.newProxyInstance(loader, new Class<?>[] { Connection.class },
+					(proxy, method, args) -> switch (method.getName()) {
+						case "getAutoCommit", "isClosed", "isReadOnly" -> false;
+						case "getTransactionIsolation" -> Connection.TRANSACTION_READ_COMMITTED;
+						case "hashCode" -> System.identityHashCode(proxy);
+						case "equals" -> proxy == args[0];
+						default -> null;
+					});
+			return (DataSource) Proxy.newProxyInstance(loader, new Class<?>[] { DataSource.class },
+					(proxy, method, args) -> switch (method.getName()) {
+						case "getConnection" -> connection;
+						case "hashCode" -> System.identityHashCode(proxy);
+						case "equals" -> proxy == args[0];
+						default -> null;
+					});
+		}
+	}
+}
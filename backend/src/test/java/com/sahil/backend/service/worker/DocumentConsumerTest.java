@@ -0,0 +1,74 @@
+package com.sahil.backend.service.worker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DocumentConsumerTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void upsertUpdatesEveryColumnButTheKey() throws Exception {
+		DocumentConsumer consumer = consumer("UPSERT", """
+				[{"sourceField": "_id", "targetColumn": "id", "primaryKey": true},
+				 {"sourceField": "name", "targetColumn": "name"},
+				 {"sourceField": "order", "targetColumn": "order"},
+				 {"sourceField": "tags", "targetColumn": "tags", "dataType": "JSONB"}]""");
+
+		assertEquals("INSERT INTO users (id, name, \"order\", tags) VALUES (?, ?, ?, ?::jsonb)"
+				+ " ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, \"order\" = EXCLUDED.\"order\","
+				+ " tags = EXCLUDED.tags", consumer.buildInsertSql(false));
+		// Upserts already tolerate rows committed by an earlier run
+		assertEquals(consumer.buildInsertSql(false), consumer.buildInsertSql(true));
+	}
+
+	@Test
+	void upsertOfAKeyOnlyTableLeavesExistingRows() throws Exception {
+		DocumentConsumer consumer = consumer("UPSERT", """
+				[{"sourceField": "_id", "targetColumn": "id", "primaryKey": true}]""");
+
+		assertEquals("INSERT INTO users (id) VALUES (?) ON CONFLICT (id) DO NOTHING", consumer.buildInsertSql(false));
+	}
+
+	@Test
+	void upsertWithoutAPrimaryKeyIsAPlainInsert() throws Exception {
+		DocumentConsumer consumer = consumer("UPSERT", """
+				[{"sourceField": "_id", "targetColumn": "id"},
+				 {"sourceField": "name", "targetColumn": "name"}]""");
+
+		assertEquals("INSERT INTO users (id, name) VALUES (?, ?)", consumer.buildInsertSql(false));
+	}
+
+	@Test
+	void insertSkipsConflictsOnlyWhenAsked() throws Exception {
+		DocumentConsumer consumer = consumer("INSERT", """
+				[{"sourceField": "_id", "targetColumn": "id", "primaryKey": true},
+				 {"sourceField": "name", "targetColumn": "name"}]""");
+
+		assertEquals("INSERT INTO users (id, name) VALUES (?, ?)", consumer.buildInsertSql(false));
+		assertEquals("INSERT INTO users (id, name) VALUES (?, ?) ON CONFLICT DO NOTHING", consumer.buildInsertSql(true));
+	}
+
+	private DocumentConsumer consumer(String writeMode, String columnMapping) throws Exception {
+		JsonNode mapping = objectMapper.readTree(columnMapping);
+		return new DocumentConsumer(new LinkedBlockingQueue<>(), new JdbcTemplate(dataSource()), mapping, "users",
+				null, objectMapper, 0, 0, null, null, 1, null, null, null, writeMode, List.of());
+	}
+
+	/**
+	 * The consumer only needs a DataSource for its transaction manager, which no test begins
+	 */
+	private static DataSource dataSource() {
+		return (DataSource) Proxy.newProxyInstance(DocumentConsumerTest.class.getClassLoader(),
+				new Class<?>[] { DataSource.class }, (proxy, method, args) -> null);
+	}
+}
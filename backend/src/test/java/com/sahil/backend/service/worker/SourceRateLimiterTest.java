@@ -0,0 +1,85 @@
+package com.sahil.backend.service.worker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SourceRateLimiterTest {
+
+	private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	// Tokens refill from construction on, so time spent before a reservation shortens its wait
+	private static final long SLACK = 100 * MILLIS;
+
+	@Test
+	void unlimitedReadsNeverWait() {
+		SourceRateLimiter limiter = new SourceRateLimiter("test", 0, 0);
+		assertEquals(0, limiter.reserve(1_000_000, 1L << 30));
+		assertEquals(1_000_000, limiter.getDocumentsAcquired());
+	}
+
+	@Test
+	void waitCoversTheDocumentDeficit() {
+		SourceRateLimiter limiter = new SourceRateLimiter("test", 100, 0);
+
+		// The bucket starts empty: 50 documents at 100/s is half a second
+		assertBetween(limiter.reserve(50, 0), 500 * MILLIS - SLACK, 500 * MILLIS);
+		// Reservations queue up behind the debt already taken
+		assertBetween(limiter.reserve(50, 0), 1000 * MILLIS - SLACK, 1000 * MILLIS);
+	}
+
+	@Test
+	void theSlowerOfDocumentAndByteLimitsWins() {
+		SourceRateLimiter limiter = new SourceRateLimiter("test", 1000, 10_000);
+		// 10 documents take 10 ms, 5000 bytes take 500 ms
+		assertBetween(limiter.reserve(10, 5_000), 500 * MILLIS - SLACK, 500 * MILLIS);
+	}
+
+	@Test
+	void autoCeilingLowersTheEffectiveRate() {
+		SourceRateLimiter limiter = new SourceRateLimiter("test", 1000, 0);
+		limiter.setAutoDocsCeiling(100);
+
+		assertEquals(100, limiter.getEffectiveDocsPerSecond(), 0.0);
+		// 10 documents would take 10 ms at the configured rate
+		assertBetween(limiter.reserve(10, 0), 50 * MILLIS, 100 * MILLIS);
+
+		limiter.setAutoDocsCeiling(0);
+		assertEquals(1000, limiter.getEffectiveDocsPerSecond(), 0.0);
+	}
+
+	@Test
+	void newLimitsDropDebtTakenUnderTheOldOnes() {
+		SourceRateLimiter limiter = new SourceRateLimiter("test", 10, 0);
+		limiter.reserve(100, 0); // Ten seconds of debt
+
+		limiter.setLimits(1000, 0);
+		assertBetween(limiter.reserve(100, 0), 0, 100 * MILLIS);
+	}
+
+	@Test
+	void tokensRefillOverTime() throws InterruptedException {
+		SourceRateLimiter limiter = new SourceRateLimiter("test", 100, 0);
+		TimeUnit.MILLISECONDS.sleep(300);
+
+		// About 30 tokens have accumulated
+		assertBetween(limiter.reserve(20, 0), 0, 0);
+		assertTrue(limiter.reserve(20, 0) < 150 * MILLIS);
+	}
+
+	@Test
+	void acquireSleepsOffTheDeficit() throws InterruptedException {
+		SourceRateLimiter limiter = new SourceRateLimiter("test", 100, 0);
+		long started = System.nanoTime();
+		limiter.acquire(20, 0);
+		assertTrue(System.nanoTime() - started >= 190 * MILLIS);
+	}
+
+	private static void assertBetween(long waitNanos, long min, long max) {
+		assertTrue(waitNanos >= min && waitNanos <= max,
+				"waited " + waitNanos / MILLIS + " ms, expected " + min / MILLIS + "-" + max / MILLIS + " ms");
+	}
+}
@@ -0,0 +1,140 @@
+package com.sahil.backend.service.worker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent table loads on the two worker pools MigrationCoordinatorService can use:
+ * a cached pool of platform threads or one virtual thread per task.
+ * Each collection runs a producer and a consumer joined by a bounded queue, as in
+ * processCollectionAsync. Reads and writes are simulated by sleeping for their I/O
+ * latency, and writes first take a connection from a pool shared by all collections.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Djdk.tracePinnedThreads=short")
+public class WorkerThreadsBenchmark {
+
+	public enum ThreadMode {
+		PLATFORM, VIRTUAL
+	}
+
+	private static final Object END = new Object();
+
+	@Param({ "PLATFORM", "VIRTUAL" })
+	ThreadMode mode;
+
+	@Param({ "100", "1000" })
+	int collections;
+
+	@Param({ "20" })
+	int batchesPerCollection;
+
+	@Param({ "500" })
+	int readMicros;
+
+	@Param({ "1000" })
+	int writeMicros;
+
+	@Param({ "50" })
+	int connectionPoolSize;
+
+	private ExecutorService producerPool;
+	private ExecutorService consumerPool;
+	private Semaphore connections;
+
+	@Setup(Level.Iteration)
+	public void startPools() {
+		producerPool = newWorkerPool();
+		consumerPool = newWorkerPool();
+		connections = new Semaphore(connectionPoolSize);
+	}
+
+	@TearDown(Level.Iteration)
+	public void stopPools() {
+		producerPool.shutdownNow();
+		consumerPool.shutdownNow();
+	}
+
+	/**
+	 * Same choice as MigrationCoordinatorService.newWorkerPool
+	 */
+	private ExecutorService newWorkerPool() {
+		if (mode == ThreadMode.VIRTUAL) {
+			return Executors.newVirtualThreadPerTaskExecutor();
+		}
+		return Executors.newCachedThreadPool();
+	}
+
+	@Benchmark
+	public int loadCollections() throws Exception {
+		List<Future<Integer>> consumers = new ArrayList<>(collections);
+		for (int c = 0; c < collections; c++) {
+			BlockingQueue<Object> queue = new ArrayBlockingQueue<>(4);
+			producerPool.submit(() -> produce(queue));
+			consumers.add(consumerPool.submit(() -> consume(queue)));
+		}
+
+		int written = 0;
+		for (Future<Integer> consumer : consumers) {
+			written += consumer.get();
+		}
+		return written;
+	}
+
+	private Void produce(BlockingQueue<Object> queue) throws InterruptedException {
+		for (int b = 0; b < batchesPerCollection; b++) {
+			TimeUnit.MICROSECONDS.sleep(readMicros); // Cursor read
+			queue.put(b);
+		}
+		queue.put(END);
+		return null;
+	}
+
+	private Integer consume(BlockingQueue<Object> queue) throws InterruptedException {
+		int written = 0;
+		while (queue.take() != END) {
+			connections.acquire();
+			try {
+				TimeUnit.MICROSECONDS.sleep(writeMicros); // Batch insert and commit
+			} finally {
+				connections.release();
+			}
+			written++;
+		}
+		return written;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(WorkerThreadsBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
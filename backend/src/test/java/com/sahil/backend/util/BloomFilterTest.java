@@ -0,0 +1,44 @@
+package com.sahil.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+	@Test
+	void addedValuesAreAlwaysFound() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.add(HyperLogLog.hash("collection_" + i));
+		}
+		for (int i = 0; i < 10_000; i++) {
+			assertTrue(filter.mightContain(HyperLogLog.hash("collection_" + i)), "collection_" + i);
+		}
+	}
+
+	@Test
+	void falsePositiveRateStaysNearTheTarget() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.add(HyperLogLog.hash("member-" + i));
+		}
+
+		int falsePositives = 0;
+		int probes = 100_000;
+		for (int i = 0; i < probes; i++) {
+			if (filter.mightContain(HyperLogLog.hash("absent-" + i))) {
+				falsePositives++;
+			}
+		}
+		double rate = (double) falsePositives / probes;
+		assertTrue(rate < 0.02, "false positive rate " + rate);
+	}
+
+	@Test
+	void rejectsImpossibleFalsePositiveRates() {
+		assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 0));
+		assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1));
+	}
+}
@@ -0,0 +1,67 @@
+package com.sahil.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+	// Precision 11: standard error 1.04 / sqrt(2048) ~ 2.3%; allow three standard errors
+	private static final double MAX_RELATIVE_ERROR = 0.07;
+
+	@Test
+	void estimatesStayWithinTheErrorBound() {
+		for (int n : new int[] { 1_000, 10_000, 100_000, 1_000_000 }) {
+			HyperLogLog hll = new HyperLogLog(11);
+			for (int i = 0; i < n; i++) {
+				hll.addHash(HyperLogLog.hash("value-" + i));
+			}
+			assertWithinError(n, hll.estimate());
+		}
+	}
+
+	@Test
+	void repeatedValuesAreCountedOnce() {
+		HyperLogLog hll = new HyperLogLog(11);
+		for (int round = 0; round < 20; round++) {
+			for (long i = 0; i < 500; i++) {
+				hll.addHash(HyperLogLog.hash(i));
+			}
+		}
+		assertWithinError(500, hll.estimate());
+	}
+
+	@Test
+	void mergeMatchesASketchOfTheUnion() {
+		HyperLogLog left = new HyperLogLog(11);
+		HyperLogLog right = new HyperLogLog(11);
+		HyperLogLog union = new HyperLogLog(11);
+		for (long i = 0; i < 60_000; i++) {
+			left.addHash(HyperLogLog.hash(i));
+			union.addHash(HyperLogLog.hash(i));
+		}
+		for (long i = 40_000; i < 100_000; i++) {
+			right.addHash(HyperLogLog.hash(i));
+			union.addHash(HyperLogLog.hash(i));
+		}
+
+		left.merge(right);
+
+		// Registers merge by max, so the merged sketch is identical to the union's
+		assertEquals(union.estimate(), left.estimate());
+		assertWithinError(100_000, left.estimate());
+	}
+
+	@Test
+	void sketchesOfDifferentPrecisionDoNotMerge() {
+		HyperLogLog hll = new HyperLogLog(11);
+		assertThrows(IllegalArgumentException.class, () -> hll.merge(new HyperLogLog(12)));
+	}
+
+	private static void assertWithinError(long expected, long estimate) {
+		double error = Math.abs(estimate - expected) / (double) expected;
+		assertTrue(error <= MAX_RELATIVE_ERROR, "estimate " + estimate + " for " + expected + " distinct values");
+	}
+}
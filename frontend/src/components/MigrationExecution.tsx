@@ -140,7 +140,7 @@ export function MigrationExecution({ migrationId }: MigrationExecutionProps) {
                 setProgress(data);
 
                 // Check if all completed
-                const allDone = data.every(p => p.status === 'COMPLETED' || p.status === 'FAILED');
+                const allDone = data.every(p => p.status === 'COMPLETED' || p.status === 'COMPLETED_WITH_ERRORS' || p.status === 'FAILED');
                 if (allDone && data.length > 0) {
                     setOverallStatus('COMPLETED');
                     setExecuting(false);
@@ -159,6 +159,7 @@ export function MigrationExecution({ migrationId }: MigrationExecutionProps) {
     const getStatusColor = (status: string) => {
         switch (status) {
             case 'COMPLETED': return 'text-green-400';
+            case 'COMPLETED_WITH_ERRORS': return 'text-yellow-400';
             case 'FAILED': return 'text-red-400';
             case 'RUNNING': return 'text-orange-400 animate-pulse';
             default: return 'text-slate-400';